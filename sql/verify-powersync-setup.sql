@@ -40,11 +40,13 @@ WHERE pubname = 'powersync';
 -- ============================================
 SELECT 
     schemaname,
-    tablename
+    tablename,
+    attnames
 FROM pg_publication_tables 
 WHERE pubname = 'powersync'
 ORDER BY tablename;
 -- Expected: family, member, task, task_list
+-- On PostgreSQL 15+ attnames lists only the synced columns (no password, is_google, is_apple or audit columns)
 
 
 -- ============================================
@@ -135,6 +137,23 @@ ORDER BY tablename;
 -- Expected: Should connect successfully and show powersync_role
 
 
+-- ============================================
+-- 11. CHECK REPLICATION SLOT WAL RETENTION
+-- ============================================
+SELECT
+    s.slot_name,
+    s.active,
+    s.wal_status,
+    pg_size_pretty(pg_wal_lsn_diff(pg_current_wal_lsn(), s.confirmed_flush_lsn)) AS lag,
+    pg_size_pretty(pg_wal_lsn_diff(pg_current_wal_lsn(), s.restart_lsn)) AS retained_wal,
+    pg_size_pretty(st.total_bytes) AS decoded
+FROM pg_replication_slots s
+LEFT JOIN pg_stat_replication_slots st ON st.slot_name = s.slot_name
+WHERE s.slot_type = 'logical';
+-- Expected: a powersync slot, active while the PowerSync service runs, wal_status 'reserved'
+-- retained_wal growing without bound means the slot has stopped advancing
+
+
 -- ============================================
 -- TROUBLESHOOTING COMMANDS
 -- ============================================
@@ -142,6 +161,7 @@ ORDER BY tablename;
 -- If you need to recreate the publication:
 -- DROP PUBLICATION IF EXISTS powersync;
 -- CREATE PUBLICATION powersync FOR TABLE family, member, task_list, task;
+-- then re-apply the column lists from changeset 007 (ALTER PUBLICATION powersync SET TABLE ...)
 
 -- If you need to add a table to publication:
 -- ALTER PUBLICATION powersync ADD TABLE new_table_name;
@@ -8,9 +8,12 @@ import com.familymind.powersync.repository.FamilyRepository;
 import com.familymind.powersync.repository.MemberRepository;
 import com.familymind.powersync.repository.TaskListRepository;
 import com.familymind.powersync.repository.TaskRepository;
+import com.familymind.powersync.sharding.Shards;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,6 +21,8 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 
 @Component
+@Profile("!synthetic-data")
+@ConditionalOnProperty(name = "powersync.seed.enabled", havingValue = "true")
 @RequiredArgsConstructor
 @Slf4j
 public class DataInitializer implements CommandLineRunner {
@@ -26,6 +31,7 @@ public class DataInitializer implements CommandLineRunner {
     private final MemberRepository memberRepository;
     private final TaskListRepository taskListRepository;
     private final TaskRepository taskRepository;
+    private final Shards shards;
 
     @Override
     @Transactional
@@ -45,6 +51,8 @@ public class DataInitializer implements CommandLineRunner {
                 .residenceType("Apartment")
                 .build();
         family1 = familyRepository.save(family1);
+        // With sharding, keep the sample families on the shard they are seeded into
+        shards.assign(family1.getId(), Shards.DEFAULT_SHARD);
 
         Member member1 = Member.builder()
                 .name("John Smith")
@@ -75,6 +83,7 @@ public class DataInitializer implements CommandLineRunner {
                 .residenceType("House")
                 .build();
         family2 = familyRepository.save(family2);
+        shards.assign(family2.getId(), Shards.DEFAULT_SHARD);
 
         Member member2 = Member.builder()
                 .name("Jane Doe")
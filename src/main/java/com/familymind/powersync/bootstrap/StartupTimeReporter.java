@@ -0,0 +1,29 @@
+package com.familymind.powersync.bootstrap;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aot.AotDetector;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+
+/**
+ * Logs how long the application took to become ready, and whether the CDS archive and
+ * Spring AOT artifacts were in use. The same timing is exported by Actuator as the
+ * {@code application.ready.time} metric.
+ */
+@Component
+@Slf4j
+public class StartupTimeReporter {
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void report(ApplicationReadyEvent event) {
+        RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        boolean cds = runtime.getInputArguments().stream().anyMatch(arg -> arg.startsWith("-XX:SharedArchiveFile"));
+
+        log.info("Startup completed: context ready in {} ms, {} ms since JVM start (CDS archive: {}, Spring AOT: {})",
+                event.getTimeTaken().toMillis(), runtime.getUptime(), cds, AotDetector.useGeneratedArtifacts());
+    }
+}
@@ -0,0 +1,309 @@
+package com.familymind.powersync.bootstrap;
+
+import com.familymind.powersync.sharding.ShardContext;
+import com.familymind.powersync.sharding.Shards;
+import com.familymind.powersync.util.RankKeys;
+import com.familymind.powersync.util.UuidGenerator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates a production-scale dataset for capacity and replication testing.
+ * Activated with the {@code synthetic-data} profile, see {@code application-synthetic-data.properties}.
+ *
+ * Families are generated in chunks. Each chunk is written by its own connection with {@code COPY}
+ * into all four tables and is committed together with a row in {@code synthetic_data_chunk}
+ * (changeset 011), so an interrupted run resumes with the chunks that are still missing.
+ * Every chunk uses its own seeded {@link Random}, so the shape of the data does not depend on
+ * how the chunks were scheduled. With sharding, chunk {@code c} goes to shard {@code c mod shards}
+ * and only uses family ids that hash to that shard, so a chunk is still one transaction on one database.
+ */
+@Component
+@Profile("synthetic-data")
+@RequiredArgsConstructor
+@Slf4j
+public class SyntheticDataGenerator implements CommandLineRunner {
+
+    private static final String[] LIST_NAMES = {"Groceries", "Chores", "School", "Errands", "Holidays", "Garden", "Birthday", "Work"};
+    private static final String[] TASK_TITLES = {"Buy milk", "Clean room", "Wash dishes", "Laundry", "Pay bills", "Walk the dog", "Homework", "Call grandma", "Water plants", "Take out trash"};
+    private static final String[] RECURRENCE_CRONS = {"0 0 8 * * *", "0 0 18 * * MON-FRI", "0 0 10 * * SAT", "0 0 9 1 * *"};
+    private static final String[] COLORS = {"#FF5733", "#33FF57", "#3357FF", "#FF33A8", "#A833FF", "#33FFF5"};
+    private static final String[] RESIDENCE_TYPES = {"Apartment", "House", "Shared"};
+
+    private final DataSource dataSource;
+    private final Shards shards;
+
+    @Value("${powersync.synthetic.families}")
+    private int families;
+
+    @Value("${powersync.synthetic.chunk-size}")
+    private int chunkSize;
+
+    @Value("${powersync.synthetic.parallelism}")
+    private int parallelism;
+
+    @Value("${powersync.synthetic.seed}")
+    private long seed;
+
+    private final AtomicLong generatedFamilies = new AtomicLong();
+    private final AtomicLong generatedTasks = new AtomicLong();
+
+    @Override
+    public void run(String... args) throws Exception {
+        int chunks = (families + chunkSize - 1) / chunkSize;
+        Set<Integer> completed = completedChunks();
+        List<Integer> remaining = new ArrayList<>();
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            if (!completed.contains(chunk)) {
+                remaining.add(chunk);
+            }
+        }
+
+        if (remaining.isEmpty()) {
+            log.info("Synthetic dataset of {} families already complete. Skipping generation.", families);
+            return;
+        }
+        log.info("Generating {} of {} chunks ({} families each) with {} parallel COPY streams...",
+                remaining.size(), chunks, chunkSize, parallelism);
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newFixedThreadPool(parallelism)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int chunk : remaining) {
+                futures.add(executor.submit(() -> {
+                    writeChunk(chunk);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        long seconds = Math.max(1, (System.nanoTime() - start) / 1_000_000_000L);
+        log.info("Synthetic dataset generation completed: {} families and {} tasks in {} s ({} tasks/s).",
+                generatedFamilies.get(), generatedTasks.get(), seconds, generatedTasks.get() / seconds);
+    }
+
+    private Set<Integer> completedChunks() throws SQLException {
+        Set<Integer> completed = new HashSet<>();
+        for (int shard : shards.ids()) {
+            try (ShardContext.Scope ignored = ShardContext.enter(shard);
+                 Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("SELECT chunk_no FROM synthetic_data_chunk")) {
+                while (resultSet.next()) {
+                    completed.add(resultSet.getInt(1));
+                }
+            }
+        }
+        return completed;
+    }
+
+    private void writeChunk(int chunk) throws SQLException {
+        int first = chunk * chunkSize;
+        int count = Math.min(chunkSize, families - first);
+        int shard = chunk % shards.count();
+        ChunkRows rows = generate(new Random(seed * 31 + chunk), count, shard);
+
+        try (ShardContext.Scope ignored = ShardContext.enter(shard);
+             Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                try (Statement statement = connection.createStatement()) {
+                    // Losing the last chunks on a crash is fine, they are simply generated again
+                    statement.execute("SET LOCAL synchronous_commit = off");
+                }
+                CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+                copyManager.copyIn("""
+                        COPY family (id, name, color_code, subscription_end_date, place_of_living, residence_type,
+                                     created_at, updated_at) FROM STDIN""", new StringReader(rows.families.toString()));
+                copyManager.copyIn("""
+                        COPY member (id, name, email, is_google, is_apple, family_id, member_role, birth_date, color,
+                                     is_verified, created_at, updated_at) FROM STDIN""", new StringReader(rows.members.toString()));
+                copyManager.copyIn("""
+                        COPY task_list (id, family_id, name, sort_by, last_activity_at, created_at, updated_at)
+                        FROM STDIN""", new StringReader(rows.taskLists.toString()));
+                copyManager.copyIn("""
+                        COPY task (id, title, description, task_list_id, family_id, is_completed, task_date, task_time,
+                                   recurrence_cron, recurring_parent_task_id, sub_task_of_id, position, rank, assigned_to,
+                                   assigned_by, assigned_at, completed_by, completed_at, created_at, updated_at)
+                        FROM STDIN""", new StringReader(rows.tasks.toString()));
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "INSERT INTO synthetic_data_chunk (chunk_no, families) VALUES (?, ?)")) {
+                    statement.setInt(1, chunk);
+                    statement.setInt(2, count);
+                    statement.executeUpdate();
+                }
+                connection.commit();
+            } catch (Exception e) {
+                connection.rollback();
+                throw new SQLException("Failed to write synthetic data chunk " + chunk, e);
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+
+        long total = generatedFamilies.addAndGet(count);
+        generatedTasks.addAndGet(rows.taskCount);
+        if (total % (chunkSize * 20L) < count) {
+            log.info("Synthetic data progress: {} / {} families", total, families);
+        }
+    }
+
+    private ChunkRows generate(Random random, int familyCount, int shard) {
+        ChunkRows rows = new ChunkRows();
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        LocalDate today = now.toLocalDate();
+
+        for (int f = 0; f < familyCount; f++) {
+            UUID familyId = familyIdOn(shard);
+            row(rows.families, familyId, "Family " + familyId.toString().substring(24), pick(random, COLORS),
+                    random.nextInt(4) == 0 ? today.plusDays(random.nextInt(365)) : null,
+                    null, pick(random, RESIDENCE_TYPES), now, now);
+
+            // Family sizes are log-normal: most have 2-4 members, a few have many more
+            int memberCount = skewed(random, 1.0, 0.6, 1, 20);
+            UUID[] members = new UUID[memberCount];
+            for (int m = 0; m < memberCount; m++) {
+                members[m] = UuidGenerator.generateUuidV7();
+                row(rows.members, members[m], "Member " + (m + 1), members[m] + "@synthetic.example",
+                        false, false, familyId, m == 0 ? "Admin" : "Member",
+                        today.minusDays(365L * 5 + random.nextInt(365 * 60)), pick(random, COLORS),
+                        random.nextInt(10) > 1, now, now);
+            }
+
+            int listCount = skewed(random, 0.8, 0.7, 1, 30);
+            for (int l = 0; l < listCount; l++) {
+                UUID listId = UuidGenerator.generateUuidV7();
+                row(rows.taskLists, listId, familyId, pick(random, LIST_NAMES), "custom", now, now, now);
+
+                int taskCount = skewed(random, 2.3, 1.0, 0, 2000);
+                // Top-level tasks of the list, occurrences included, each take the next slot
+                int slot = 0;
+                for (int t = 0; t < taskCount; t++) {
+                    int roll = random.nextInt(100);
+                    boolean recurring = roll >= 15 && roll < 25;
+                    // Every recurring template has a rule; a few other tasks recur without occurrences yet
+                    String cron = recurring || random.nextInt(10) == 0 ? pick(random, RECURRENCE_CRONS) : null;
+                    UUID taskId = addTask(rows, random, today, now, familyId, listId, members, null, null, cron, slot++);
+
+                    if (roll < 15) {
+                        // Subtasks of this task, ordered among themselves
+                        int subtasks = 1 + random.nextInt(5);
+                        for (int s = 0; s < subtasks; s++) {
+                            addTask(rows, random, today, now, familyId, listId, members, taskId, null, null, s);
+                        }
+                    } else if (recurring) {
+                        // Recurring task: the template plus the occurrences generated from it
+                        int occurrences = 1 + random.nextInt(4);
+                        for (int o = 0; o < occurrences; o++) {
+                            addTask(rows, random, today, now, familyId, listId, members, null, taskId, null, slot++);
+                        }
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * @return a new family id that is placed on {@code shard}; takes about as many tries as there are shards
+     */
+    private UUID familyIdOn(int shard) {
+        UUID familyId = UuidGenerator.generateUuidV7();
+        while (shards.shardFor(familyId) != shard) {
+            familyId = UuidGenerator.generateUuidV7();
+        }
+        return familyId;
+    }
+
+    private UUID addTask(ChunkRows rows, Random random, LocalDate today, OffsetDateTime now, UUID familyId,
+                         UUID listId, UUID[] members, UUID parentTaskId, UUID recurringParentTaskId, String cron,
+                         int position) {
+        UUID id = UuidGenerator.generateUuidV7();
+        boolean completed = random.nextInt(100) < 40;
+        UUID assignee = random.nextInt(3) > 0 ? members[random.nextInt(members.length)] : null;
+        UUID completer = completed ? members[random.nextInt(members.length)] : null;
+
+        row(rows.tasks, id, pick(random, TASK_TITLES), random.nextBoolean() ? "Synthetic task" : null,
+                listId, familyId, completed,
+                random.nextBoolean() ? today.plusDays(random.nextInt(360) - 180) : null,
+                random.nextBoolean() ? LocalTime.of(random.nextInt(24), random.nextInt(4) * 15) : null,
+                cron, recurringParentTaskId, parentTaskId, position, RankKeys.initial(position + 1),
+                assignee, assignee != null ? members[0] : null, assignee != null ? now : null,
+                completer, completed ? now : null, now, now);
+        rows.taskCount++;
+        return id;
+    }
+
+    private static int skewed(Random random, double mu, double sigma, int min, int max) {
+        long value = Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+        return (int) Math.max(min, Math.min(max, value));
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    /**
+     * Appends one row in COPY text format.
+     */
+    private static void row(StringBuilder out, Object... values) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.append('\t');
+            }
+            Object value = values[i];
+            if (value == null) {
+                out.append("\\N");
+            } else if (value instanceof String text) {
+                for (int c = 0; c < text.length(); c++) {
+                    char ch = text.charAt(c);
+                    switch (ch) {
+                        case '\\' -> out.append("\\\\");
+                        case '\t' -> out.append("\\t");
+                        case '\n' -> out.append("\\n");
+                        case '\r' -> out.append("\\r");
+                        default -> out.append(ch);
+                    }
+                }
+            } else {
+                out.append(value);
+            }
+        }
+        out.append('\n');
+    }
+
+    private static class ChunkRows {
+        final StringBuilder families = new StringBuilder();
+        final StringBuilder members = new StringBuilder();
+        final StringBuilder taskLists = new StringBuilder();
+        final StringBuilder tasks = new StringBuilder();
+        long taskCount;
+    }
+}
@@ -0,0 +1,122 @@
+package com.familymind.powersync.config;
+
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotContribution;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+/**
+ * Guards against feature toggles that an AOT build has already decided.
+ *
+ * Spring AOT (the {@code fast-start} Maven profile) evaluates {@code @ConditionalOnProperty} and
+ * {@code @Profile} while building, so in the AOT artifact {@code powersync.*.enabled} and the active
+ * profiles keep their build-time values whatever is set at runtime. The {@link Recorder} stores those
+ * values in the artifact, and {@link Check} refuses to start an AOT run whose values differ, instead
+ * of silently running with the build-time features.
+ */
+public final class AotBuildProperties {
+
+    static final String RESOURCE = "META-INF/powersync/aot-build.properties";
+
+    private static final String PROFILES_KEY = "spring.profiles.active";
+    private static final String TOGGLE_PREFIX = "powersync.";
+    private static final String TOGGLE_SUFFIX = ".enabled";
+
+    private AotBuildProperties() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * @return the active profiles and every {@code powersync.*.enabled} property, as resolved by the environment
+     */
+    static Map<String, String> snapshot(ConfigurableEnvironment environment, Set<String> extraKeys) {
+        Set<String> keys = new TreeSet<>(extraKeys);
+        for (var source : environment.getPropertySources()) {
+            if (source instanceof EnumerablePropertySource<?> enumerable) {
+                for (String name : enumerable.getPropertyNames()) {
+                    if (name.startsWith(TOGGLE_PREFIX) && name.endsWith(TOGGLE_SUFFIX)) {
+                        keys.add(name);
+                    }
+                }
+            }
+        }
+        keys.remove(PROFILES_KEY);
+
+        Map<String, String> values = new TreeMap<>();
+        values.put(PROFILES_KEY, String.join(",", new TreeSet<>(Arrays.asList(environment.getActiveProfiles()))));
+        for (String key : keys) {
+            values.put(key, String.valueOf(environment.getProperty(key)));
+        }
+        return values;
+    }
+
+    /**
+     * Writes the build-time values into the AOT artifact. Registered in {@code META-INF/spring/aot.factories}.
+     */
+    public static class Recorder implements BeanFactoryInitializationAotProcessor {
+
+        @Override
+        public BeanFactoryInitializationAotContribution processAheadOfTime(ConfigurableListableBeanFactory beanFactory) {
+            if (!(beanFactory.getBean(Environment.class) instanceof ConfigurableEnvironment environment)) {
+                return null;
+            }
+            Properties properties = new Properties();
+            properties.putAll(snapshot(environment, Set.of()));
+            return (generationContext, code) -> {
+                StringWriter content = new StringWriter();
+                try {
+                    properties.store(content, "Feature toggles evaluated by the AOT build");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                generationContext.getGeneratedFiles().addResourceFile(RESOURCE, content.toString());
+            };
+        }
+    }
+
+    /**
+     * Fails an AOT run whose toggles differ from the build. Registered in {@code META-INF/spring.factories}.
+     */
+    public static class Check implements ApplicationListener<ApplicationEnvironmentPreparedEvent> {
+
+        @Override
+        public void onApplicationEvent(ApplicationEnvironmentPreparedEvent event) {
+            ClassPathResource resource = new ClassPathResource(RESOURCE);
+            if (!AotDetector.useGeneratedArtifacts() || !resource.exists()) {
+                return;
+            }
+            Properties build = new Properties();
+            try (InputStream in = resource.getInputStream()) {
+                build.load(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read " + RESOURCE, e);
+            }
+
+            Map<String, String> runtime = snapshot(event.getEnvironment(), build.stringPropertyNames());
+            List<String> differences = new ArrayList<>();
+            runtime.forEach((key, value) -> {
+                String built = build.getProperty(key, "null");
+                if (!built.equals(value)) {
+                    differences.add(key + " is '" + value + "' but the AOT build used '" + built + "'");
+                }
+            });
+            if (!differences.isEmpty()) {
+                throw new IllegalStateException("Settings fixed by the AOT build differ at runtime: "
+                        + String.join("; ", differences)
+                        + ". Rebuild with these settings, or start without -Dspring.aot.enabled=true.");
+            }
+        }
+    }
+}
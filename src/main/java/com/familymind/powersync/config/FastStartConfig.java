@@ -0,0 +1,94 @@
+package com.familymind.powersync.config;
+
+import com.familymind.powersync.sharding.ShardDataSources;
+import liquibase.integration.spring.SpringLiquibase;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cfg.SchemaToolingSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Fast-start mode ({@code powersync.fast-start.enabled=true}, enabled by the {@code fast-start} profile).
+ *
+ * When the deployed {@link SchemaFingerprint} matches the one stored by the last successful boot,
+ * the Liquibase changelog check and Hibernate schema validation are skipped. Otherwise both run as
+ * usual and the new fingerprint is stored once the application is ready, unless a precondition skipped
+ * a changeset that Liquibase will retry (007 to 009 are skipped before PostgreSQL 15). With sharding,
+ * the fingerprint is checked and stored on every shard, since {@code ShardedLiquibase} migrates them all.
+ */
+@Configuration
+@ConditionalOnProperty(name = "powersync.fast-start.enabled", havingValue = "true")
+@Slf4j
+public class FastStartConfig {
+
+    /**
+     * Uses its own {@link JdbcTemplate}s: the shared one is initialized after Liquibase, which
+     * consults the fingerprint while it is being created.
+     */
+    @Bean
+    public SchemaFingerprint schemaFingerprint(DataSource dataSource, ObjectProvider<ShardDataSources> shardDataSources) {
+        ShardDataSources shards = shardDataSources.getIfAvailable();
+        if (shards == null) {
+            return new SchemaFingerprint(List.of(new JdbcTemplate(dataSource)));
+        }
+        return new SchemaFingerprint(IntStream.range(0, shards.count())
+                .mapToObj(shard -> new JdbcTemplate(shards.get(shard)))
+                .toList());
+    }
+
+    /**
+     * Turns Liquibase off before it initializes. The fingerprint is looked up lazily, so this
+     * post-processor does not pull the DataSource into early initialization.
+     */
+    @Bean
+    public static BeanPostProcessor skipUnchangedLiquibase(ObjectProvider<SchemaFingerprint> schemaFingerprint) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof SpringLiquibase liquibase && schemaFingerprint.getObject().matchesStored()) {
+                    log.info("Schema fingerprint unchanged, skipping Liquibase changelog check");
+                    liquibase.setShouldRun(false);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer skipUnchangedSchemaValidation(SchemaFingerprint schemaFingerprint) {
+        return properties -> {
+            if (schemaFingerprint.matchesStored()) {
+                log.info("Schema fingerprint unchanged, skipping Hibernate schema validation");
+                properties.put(SchemaToolingSettings.HBM2DDL_AUTO, "none");
+            }
+        };
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void storeFingerprint(ApplicationReadyEvent event) {
+        SchemaFingerprint schemaFingerprint = event.getApplicationContext().getBean(SchemaFingerprint.class);
+        if (schemaFingerprint.matchesStored()) {
+            return;
+        }
+        String changeLog = event.getApplicationContext().getEnvironment().getRequiredProperty("spring.liquibase.change-log");
+        List<String> unrun = schemaFingerprint.unrunChangeSets(changeLog);
+        if (!unrun.isEmpty()) {
+            log.info("Not storing the schema fingerprint, Liquibase will retry {} skipped changeset(s): {}",
+                    unrun.size(), unrun);
+            return;
+        }
+        schemaFingerprint.store();
+        log.info("Stored schema fingerprint after successful migration and validation");
+    }
+}
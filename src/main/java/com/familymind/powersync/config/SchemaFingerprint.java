@@ -0,0 +1,149 @@
+package com.familymind.powersync.config;
+
+import liquibase.Contexts;
+import liquibase.LabelExpression;
+import liquibase.Liquibase;
+import liquibase.changelog.ChangeSet;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.LiquibaseException;
+import liquibase.integration.spring.SpringResourceAccessor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * SHA-256 over everything that decides whether the database schema is up to date:
+ * the Liquibase changelog files and the compiled JPA entities.
+ *
+ * The fingerprint of the last boot that migrated and validated successfully is stored in
+ * {@code app_schema_fingerprint}. When the deployed fingerprint matches it, neither Liquibase nor
+ * Hibernate validation can find anything new, so fast-start mode skips both. With sharding, every
+ * shard stores its own copy and the deployed fingerprint only matches if it matches on all of them.
+ */
+@Slf4j
+public class SchemaFingerprint {
+
+    private static final List<String> LOCATIONS = List.of(
+            "classpath*:db/changelog/**/*.yaml",
+            "classpath*:com/familymind/powersync/entity/*.class"
+    );
+
+    private final List<JdbcTemplate> databases;
+    private final String deployed;
+    private Boolean matchesStored;
+
+    public SchemaFingerprint(List<JdbcTemplate> databases) {
+        this.databases = List.copyOf(databases);
+        this.deployed = compute();
+    }
+
+    /**
+     * Whether the stored fingerprint equals the deployed one. Evaluated once, so Liquibase and
+     * Hibernate always make the same decision even after {@link #store()}.
+     */
+    public synchronized boolean matchesStored() {
+        if (matchesStored == null) {
+            matchesStored = databases.stream().allMatch(database -> deployed.equals(readStored(database)));
+        }
+        return matchesStored;
+    }
+
+    public void store() {
+        for (JdbcTemplate jdbcTemplate : databases) {
+            jdbcTemplate.update("""
+                    INSERT INTO app_schema_fingerprint (id, fingerprint, recorded_at) VALUES (1, ?, now())
+                    ON CONFLICT (id) DO UPDATE SET fingerprint = EXCLUDED.fingerprint, recorded_at = EXCLUDED.recorded_at""",
+                    deployed);
+        }
+    }
+
+    /**
+     * Changesets of the changelog that have not run on every database, for example because a precondition
+     * with {@code onFail: CONTINUE} skipped them. Liquibase tries those again on every boot, so a fingerprint
+     * stored while any are left would skip them for good.
+     */
+    public List<String> unrunChangeSets(String changeLog) {
+        List<String> unrun = new ArrayList<>();
+        for (JdbcTemplate jdbcTemplate : databases) {
+            unrun.addAll(jdbcTemplate.execute((ConnectionCallback<List<String>>) connection -> {
+                try {
+                    Database database = DatabaseFactory.getInstance()
+                            .findCorrectDatabaseImplementation(new JdbcConnection(connection));
+                    // The same resource accessor as SpringLiquibase, so changeset paths match the recorded ones
+                    Liquibase liquibase = new Liquibase(changeLog,
+                            new SpringResourceAccessor(new DefaultResourceLoader()), database);
+                    return liquibase.listUnrunChangeSets(new Contexts(), new LabelExpression()).stream()
+                            .map(ChangeSet::toString)
+                            .toList();
+                } catch (LiquibaseException e) {
+                    throw new IllegalStateException("Could not list unrun changesets of " + changeLog, e);
+                }
+            }));
+        }
+        return unrun;
+    }
+
+    private String readStored(JdbcTemplate jdbcTemplate) {
+        try {
+            Boolean exists = jdbcTemplate.queryForObject(
+                    "SELECT to_regclass('app_schema_fingerprint') IS NOT NULL", Boolean.class);
+            if (!Boolean.TRUE.equals(exists)) {
+                return null;
+            }
+            List<String> stored = jdbcTemplate.queryForList(
+                    "SELECT fingerprint FROM app_schema_fingerprint WHERE id = 1", String.class);
+            return stored.isEmpty() ? null : stored.getFirst();
+        } catch (RuntimeException e) {
+            log.warn("Could not read the stored schema fingerprint, running full migration and validation", e);
+            return null;
+        }
+    }
+
+    private static String compute() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+            for (String location : LOCATIONS) {
+                Resource[] resources = resolver.getResources(location);
+                Arrays.sort(resources, Comparator.comparing(SchemaFingerprint::relativeName));
+                for (Resource resource : resources) {
+                    digest.update(relativeName(resource).getBytes());
+                    try (InputStream in = resource.getInputStream()) {
+                        digest.update(in.readAllBytes());
+                    }
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not compute schema fingerprint", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String relativeName(Resource resource) {
+        try {
+            String url = resource.getURL().toString();
+            int index = Math.max(url.lastIndexOf("db/changelog/"), url.lastIndexOf("com/familymind/"));
+            return index >= 0 ? url.substring(index) : url;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.familymind.powersync.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
@@ -25,8 +26,12 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/powersync/**").permitAll()
+                        // Only health statuses are public; details and metrics need the actuator account
+                        .requestMatchers("/actuator/health", "/actuator/health/*").permitAll()
                         .anyRequest().authenticated()
-                );
+                )
+                // The actuator account (spring.security.user.*) signs in with HTTP Basic; clients use JWTs
+                .httpBasic(Customizer.withDefaults());
 
         return http.build();
     }
@@ -5,6 +5,7 @@ import com.familymind.powersync.dto.TokenResponse;
 import com.familymind.powersync.entity.Member;
 import com.familymind.powersync.repository.MemberRepository;
 import com.familymind.powersync.security.JwtService;
+import com.familymind.powersync.sharding.Shards;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -19,10 +20,12 @@ public class AuthController {
 
     private final MemberRepository memberRepository;
     private final JwtService jwtService;
+    private final Shards shards;
 
     @PostMapping("/login")
     public ResponseEntity<TokenResponse> login(@Valid @RequestBody LoginRequest request) {
-        Member member = memberRepository.findByEmail(request.email())
+        // Members are not keyed by family here, so look on every shard
+        Member member = shards.findFirst(() -> memberRepository.findByEmail(request.email()))
                 .orElseThrow(() -> new RuntimeException("Invalid credentials"));
 
         // TODO: Add password verification in production
@@ -35,13 +38,14 @@ public class AuthController {
                 token,
                 member.getId(),
                 familyId,
-                3600000L
+                3600000L,
+                shards.powerSyncUrl(familyId)
         ));
     }
 
     @GetMapping("/token/{memberId}")
     public ResponseEntity<TokenResponse> getToken(@PathVariable UUID memberId) {
-        Member member = memberRepository.findById(memberId)
+        Member member = shards.findFirst(() -> memberRepository.findById(memberId))
                 .orElseThrow(() -> new RuntimeException("Member not found"));
 
         UUID familyId = member.getFamily() != null ? member.getFamily().getId() : null;
@@ -51,7 +55,8 @@ public class AuthController {
                 token,
                 member.getId(),
                 familyId,
-                3600000L
+                3600000L,
+                shards.powerSyncUrl(familyId)
         ));
     }
 }
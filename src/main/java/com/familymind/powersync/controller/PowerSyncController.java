@@ -1,25 +1,28 @@
 package com.familymind.powersync.controller;
 
 import com.familymind.powersync.dto.WriteCheckpointRequest;
-import com.familymind.powersync.entity.Family;
-import com.familymind.powersync.entity.Member;
-import com.familymind.powersync.entity.Task;
-import com.familymind.powersync.entity.TaskList;
-import com.familymind.powersync.repository.FamilyRepository;
-import com.familymind.powersync.repository.MemberRepository;
-import com.familymind.powersync.repository.TaskListRepository;
-import com.familymind.powersync.repository.TaskRepository;
-import jakarta.persistence.EntityManager;
+import com.familymind.powersync.journal.JournalFullException;
+import com.familymind.powersync.journal.UploadJournal;
+import com.familymind.powersync.journal.UploadJournalCodec;
+import com.familymind.powersync.replication.ReplicationLsnService;
+import com.familymind.powersync.replication.WalLsn;
+import com.familymind.powersync.security.BearerTokens;
+import com.familymind.powersync.service.WriteCheckpointService;
+import com.familymind.powersync.web.UploadTooLargeException;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
-import java.time.LocalDate;
-import java.time.LocalTime;
-import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/powersync")
@@ -27,32 +30,28 @@ import java.util.*;
 @Slf4j
 public class PowerSyncController {
 
-    private final TaskRepository taskRepository;
-    private final TaskListRepository taskListRepository;
-    private final MemberRepository memberRepository;
-    private final FamilyRepository familyRepository;
-    private final EntityManager entityManager;
+    private static final int JOURNAL_FULL_RETRY_AFTER_SECONDS = 5;
+
+    private final WriteCheckpointService writeCheckpointService;
+    private final ObjectProvider<UploadJournal> uploadJournal;
+    private final ObjectProvider<UploadJournalCodec> uploadJournalCodec;
+    private final ReplicationLsnService replicationLsnService;
+    private final BearerTokens bearerTokens;
+
+    @Value("${powersync.replication.max-await-ms}")
+    private long maxAwaitMs;
 
     @PostMapping("/write-checkpoint")
-    @Transactional
-    public ResponseEntity<Map<String, Object>> writeCheckpoint(@RequestBody WriteCheckpointRequest request) {
-        List<Map<String, Object>> results = new ArrayList<>();
+    public ResponseEntity<Map<String, Object>> writeCheckpoint(@RequestBody WriteCheckpointRequest request,
+                                                               HttpServletRequest httpRequest) {
+        UploadJournal journal = uploadJournal.getIfAvailable();
+        if (journal != null) {
+            return journalWriteCheckpoint(journal, request, bearerTokens.familyId(httpRequest));
+        }
 
+        List<Map<String, Object>> results;
         try {
-            for (var operation : request.operations()) {
-                processOperation(operation);
-                results.add(Map.of(
-                        "op", operation.op(),
-                        "table", operation.table(),
-                        "success", true
-                ));
-            }
-
-            return ResponseEntity.ok(Map.of(
-                    "success", true,
-                    "processed", results.size(),
-                    "results", results
-            ));
+            results = writeCheckpointService.apply(request);
         } catch (Exception e) {
             log.error("Error processing write operations", e);
             return ResponseEntity.ok(Map.of(
@@ -60,128 +59,124 @@ public class PowerSyncController {
                     "error", e.getMessage()
             ));
         }
-    }
 
-    private void processOperation(WriteCheckpointRequest.WriteOperation operation) {
-        switch (operation.table()) {
-            case "task" -> processTaskOperation(operation);
-            case "task_list" -> processTaskListOperation(operation);
-            case "member" -> processMemberOperation(operation);
-            case "family" -> processFamilyOperation(operation);
-            default -> log.warn("Unknown table: {}", operation.table());
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("success", true);
+        response.put("processed", results.size());
+        response.put("results", results);
+        try {
+            // Read after the commit, so the position covers this upload's writes
+            response.put("lsn", WalLsn.format(replicationLsnService.currentWalLsn()));
+        } catch (Exception e) {
+            log.warn("Could not read the commit LSN of a write checkpoint", e);
         }
+        return ResponseEntity.ok(response);
     }
 
-    private void processTaskOperation(WriteCheckpointRequest.WriteOperation op) {
-        Map<String, Object> data = op.data();
-        UUID id = UUID.fromString((String) data.get("id"));
-
-        switch (op.op()) {
-            case "PUT" -> {
-                Task task = new Task();
-                task.setId(id);
-                task.setTitle((String) data.get("title"));
-                task.setDescription((String) data.get("description"));
-                task.setIsCompleted(Boolean.parseBoolean(String.valueOf(data.get("is_completed"))));
-                
-                if (data.get("task_list_id") != null) {
-                    UUID taskListId = UUID.fromString((String) data.get("task_list_id"));
-                    task.setTaskList(entityManager.getReference(TaskList.class, taskListId));
-                }
-                if (data.get("assigned_to") != null) {
-                    UUID assignedToId = UUID.fromString((String) data.get("assigned_to"));
-                    task.setAssignedTo(entityManager.getReference(Member.class, assignedToId));
-                }
-                if (data.get("task_date") != null) {
-                    task.setTaskDate(LocalDate.parse((String) data.get("task_date")));
-                }
-                if (data.get("task_time") != null) {
-                    task.setTaskTime(LocalTime.parse((String) data.get("task_time")));
-                }
-                if (data.get("position") != null) {
-                    task.setPosition(Integer.parseInt(String.valueOf(data.get("position"))));
-                }
-                
-                taskRepository.save(task);
-            }
-            case "PATCH" -> taskRepository.findById(id).ifPresent(task -> {
-                if (data.containsKey("title")) task.setTitle((String) data.get("title"));
-                if (data.containsKey("description")) task.setDescription((String) data.get("description"));
-                if (data.containsKey("is_completed")) {
-                    task.setIsCompleted(Boolean.parseBoolean(String.valueOf(data.get("is_completed"))));
-                    if (task.getIsCompleted()) {
-                        task.setCompletedAt(ZonedDateTime.now());
-                    }
-                }
-                if (data.containsKey("task_date")) {
-                    task.setTaskDate(LocalDate.parse((String) data.get("task_date")));
-                }
-                if (data.containsKey("position")) {
-                    task.setPosition(Integer.parseInt(String.valueOf(data.get("position"))));
-                }
-                taskRepository.save(task);
-            });
-            case "DELETE" -> taskRepository.deleteById(id);
+    /**
+     * Acknowledges the upload as soon as it is durable in the local journal.
+     * The operations are applied to the database in the background by the journal applier.
+     * While the applier is too far behind, uploads are refused with {@code 503} and {@code Retry-After}.
+     */
+    private ResponseEntity<Map<String, Object>> journalWriteCheckpoint(UploadJournal journal, WriteCheckpointRequest request,
+                                                                       UUID familyId) {
+        try {
+            long sequence = journal.append(uploadJournalCodec.getObject().encode(familyId, request)).join();
+
+            return ResponseEntity.ok(Map.of(
+                    "success", true,
+                    "processed", request.operations().size(),
+                    "journalSequence", sequence
+            ));
+        } catch (JournalFullException e) {
+            log.warn("Refusing upload, upload journal is full: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, Integer.toString(JOURNAL_FULL_RETRY_AFTER_SECONDS))
+                    .body(Map.of(
+                            "success", false,
+                            "error", "Upload backlog is full, retry later"
+                    ));
+        } catch (Exception e) {
+            log.error("Error journaling write operations", e);
+            return ResponseEntity.ok(Map.of(
+                    "success", false,
+                    "error", String.valueOf(e.getMessage())
+            ));
         }
     }
 
-    private void processTaskListOperation(WriteCheckpointRequest.WriteOperation op) {
-        Map<String, Object> data = op.data();
-        UUID id = UUID.fromString((String) data.get("id"));
-
-        switch (op.op()) {
-            case "PUT" -> {
-                TaskList taskList = new TaskList();
-                taskList.setId(id);
-                taskList.setName((String) data.get("name"));
-                if (data.get("family_id") != null) {
-                    UUID familyId = UUID.fromString((String) data.get("family_id"));
-                    taskList.setFamily(entityManager.getReference(Family.class, familyId));
-                }
-                if (data.get("sort_by") != null) {
-                    taskList.setSortBy((String) data.get("sort_by"));
-                }
-                taskListRepository.save(taskList);
-            }
-            case "PATCH" -> taskListRepository.findById(id).ifPresent(taskList -> {
-                if (data.containsKey("name")) taskList.setName((String) data.get("name"));
-                if (data.containsKey("sort_by")) taskList.setSortBy((String) data.get("sort_by"));
-                taskListRepository.save(taskList);
-            });
-            case "DELETE" -> taskListRepository.deleteById(id);
-        }
+    /**
+     * Long-polls until PowerSync has replicated up to the given LSN (as returned by write-checkpoint)
+     * or the timeout expires. The request thread is released while waiting.
+     */
+    @GetMapping("/write-checkpoint/await")
+    public DeferredResult<ResponseEntity<Map<String, Object>>> awaitWriteCheckpoint(
+            @RequestParam String lsn,
+            @RequestParam(defaultValue = "30000") long timeoutMs) {
+        long target = WalLsn.parse(lsn);
+        long timeout = Math.clamp(timeoutMs, 0, maxAwaitMs);
+
+        // The future times out first; the DeferredResult timeout is only a safety net
+        DeferredResult<ResponseEntity<Map<String, Object>>> result = new DeferredResult<>(timeout + 5000);
+        replicationLsnService.awaitConfirmed(target)
+                .completeOnTimeout(null, timeout, TimeUnit.MILLISECONDS)
+                .thenAccept(confirmed -> result.setResult(ResponseEntity.ok(Map.of(
+                        "lsn", lsn,
+                        "replicated", confirmed != null
+                ))));
+        return result;
     }
 
-    private void processMemberOperation(WriteCheckpointRequest.WriteOperation op) {
-        Map<String, Object> data = op.data();
-        UUID id = UUID.fromString((String) data.get("id"));
-
-        switch (op.op()) {
-            case "PATCH" -> memberRepository.findById(id).ifPresent(member -> {
-                if (data.containsKey("name")) member.setName((String) data.get("name"));
-                if (data.containsKey("color")) member.setColor((String) data.get("color"));
-                if (data.containsKey("image")) member.setImage((String) data.get("image"));
-                if (data.containsKey("birth_date")) {
-                    member.setBirthDate(LocalDate.parse((String) data.get("birth_date")));
-                }
-                memberRepository.save(member);
-            });
+    /**
+     * Rewrites a task list's ranks to evenly spaced keys in a single statement. Uploads trigger this
+     * automatically once ranks get too long; this endpoint allows doing it on demand.
+     * Only lists of the family in the bearer token can be rebalanced; other lists are reported as not found.
+     */
+    @PostMapping("/task-lists/{taskListId}/rebalance")
+    public ResponseEntity<Map<String, Object>> rebalanceTaskList(@PathVariable UUID taskListId,
+                                                                 HttpServletRequest httpRequest) {
+        UUID familyId = bearerTokens.familyId(httpRequest);
+        if (familyId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of(
+                    "success", false,
+                    "error", "A bearer token with a family_id is required"
+            ));
+        }
+        OptionalInt rebalanced = writeCheckpointService.rebalance(familyId, taskListId);
+        if (rebalanced.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                    "success", false,
+                    "error", "Task list not found"
+            ));
         }
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "taskListId", taskListId,
+                "rebalanced", rebalanced.getAsInt()
+        ));
     }
 
-    private void processFamilyOperation(WriteCheckpointRequest.WriteOperation op) {
-        Map<String, Object> data = op.data();
-        UUID id = UUID.fromString((String) data.get("id"));
-
-        switch (op.op()) {
-            case "PATCH" -> familyRepository.findById(id).ifPresent(family -> {
-                if (data.containsKey("name")) family.setName((String) data.get("name"));
-                if (data.containsKey("color_code")) family.setColorCode((String) data.get("color_code"));
-                if (data.containsKey("place_of_living")) family.setPlaceOfLiving((String) data.get("place_of_living"));
-                if (data.containsKey("residence_type")) family.setResidenceType((String) data.get("residence_type"));
-                if (data.containsKey("family_image")) family.setFamilyImage((String) data.get("family_image"));
-                familyRepository.save(family);
-            });
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "error", String.valueOf(e.getMessage())
+        ));
+    }
+
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<Map<String, Object>> handleUnreadableUpload(HttpMessageNotReadableException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof UploadTooLargeException tooLarge) {
+                return ResponseEntity.status(HttpStatus.CONTENT_TOO_LARGE).body(Map.of(
+                        "success", false,
+                        "error", tooLarge.getMessage()
+                ));
+            }
         }
+        return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "error", String.valueOf(e.getMessage())
+        ));
     }
 }
@@ -0,0 +1,248 @@
+package com.familymind.powersync.dto;
+
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.StreamWriteCapability;
+import tools.jackson.databind.DeserializationContext;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.ValueDeserializer;
+import tools.jackson.databind.ValueSerializer;
+import tools.jackson.databind.annotation.JsonDeserialize;
+import tools.jackson.databind.annotation.JsonSerialize;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * The {@code data} of a client write operation, decoded from the JSON or CBOR tokens straight into
+ * typed column values, without building an intermediate {@code Map<String, Object>}.
+ *
+ * Only the columns the server writes are kept; other columns in the upload are skipped. A column
+ * sent as {@code null} is present with a {@code null} value, which lets a PATCH clear it.
+ */
+@JsonDeserialize(using = OperationData.Deserializer.class)
+@JsonSerialize(using = OperationData.Serializer.class)
+public final class OperationData {
+
+    private static final Map<String, Column<?>> COLUMNS = new LinkedHashMap<>();
+
+    public static final Column<UUID> ID = Column.define("id", Type.UUID);
+    public static final Column<String> NAME = Column.define("name", Type.STRING);
+    public static final Column<UUID> FAMILY_ID = Column.define("family_id", Type.UUID);
+
+    public static final Column<String> TITLE = Column.define("title", Type.STRING);
+    public static final Column<String> DESCRIPTION = Column.define("description", Type.STRING);
+    public static final Column<Boolean> IS_COMPLETED = Column.define("is_completed", Type.BOOLEAN);
+    public static final Column<UUID> TASK_LIST_ID = Column.define("task_list_id", Type.UUID);
+    public static final Column<UUID> ASSIGNED_TO = Column.define("assigned_to", Type.UUID);
+    public static final Column<LocalDate> TASK_DATE = Column.define("task_date", Type.DATE);
+    public static final Column<LocalTime> TASK_TIME = Column.define("task_time", Type.TIME);
+    public static final Column<Integer> POSITION = Column.define("position", Type.INTEGER);
+    public static final Column<String> RANK = Column.define("rank", Type.STRING);
+
+    public static final Column<String> SORT_BY = Column.define("sort_by", Type.STRING);
+
+    public static final Column<String> COLOR = Column.define("color", Type.STRING);
+    public static final Column<String> IMAGE = Column.define("image", Type.STRING);
+    public static final Column<LocalDate> BIRTH_DATE = Column.define("birth_date", Type.DATE);
+
+    public static final Column<String> COLOR_CODE = Column.define("color_code", Type.STRING);
+    public static final Column<String> PLACE_OF_LIVING = Column.define("place_of_living", Type.STRING);
+    public static final Column<String> RESIDENCE_TYPE = Column.define("residence_type", Type.STRING);
+    public static final Column<String> FAMILY_IMAGE = Column.define("family_image", Type.STRING);
+
+    private final Object[] values = new Object[COLUMNS.size()];
+    private long present;
+
+    /**
+     * Builds operation data from already decoded values, e.g. in tests. Unknown columns are ignored.
+     */
+    public static OperationData of(Map<String, ?> values) {
+        OperationData data = new OperationData();
+        values.forEach((name, value) -> {
+            Column<?> column = COLUMNS.get(name);
+            if (column != null) {
+                data.put(column, column.type.convert(value));
+            }
+        });
+        return data;
+    }
+
+    public boolean has(Column<?> column) {
+        return (present & (1L << column.index)) != 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(Column<T> column) {
+        return (T) values[column.index];
+    }
+
+    private void put(Column<?> column, Object value) {
+        values[column.index] = value;
+        present |= 1L << column.index;
+    }
+
+    public static final class Column<T> {
+
+        private final String name;
+        private final int index;
+        private final Type type;
+
+        private Column(String name, int index, Type type) {
+            this.name = name;
+            this.index = index;
+            this.type = type;
+        }
+
+        private static <T> Column<T> define(String name, Type type) {
+            Column<T> column = new Column<>(name, COLUMNS.size(), type);
+            COLUMNS.put(name, column);
+            return column;
+        }
+
+        public String name() {
+            return name;
+        }
+    }
+
+    private enum Type {
+        UUID {
+            @Override
+            Object convert(Object value) {
+                return OperationValues.uuid(value);
+            }
+
+            @Override
+            void writeNative(JsonGenerator gen, Object value) {
+                gen.writeBinary(OperationValues.bytes((java.util.UUID) value));
+            }
+        },
+        STRING {
+            @Override
+            Object convert(Object value) {
+                return OperationValues.string(value);
+            }
+        },
+        BOOLEAN {
+            @Override
+            Object convert(Object value) {
+                return OperationValues.bool(value);
+            }
+
+            @Override
+            void writeNative(JsonGenerator gen, Object value) {
+                gen.writeBoolean((Boolean) value);
+            }
+        },
+        INTEGER {
+            @Override
+            Object convert(Object value) {
+                return OperationValues.integer(value);
+            }
+
+            @Override
+            void writeNative(JsonGenerator gen, Object value) {
+                gen.writeNumber((Integer) value);
+            }
+        },
+        DATE {
+            @Override
+            Object convert(Object value) {
+                return OperationValues.localDate(value);
+            }
+
+            @Override
+            void writeNative(JsonGenerator gen, Object value) {
+                gen.writeNumber(((LocalDate) value).toEpochDay());
+            }
+        },
+        TIME {
+            @Override
+            Object convert(Object value) {
+                return OperationValues.localTime(value);
+            }
+
+            @Override
+            void writeNative(JsonGenerator gen, Object value) {
+                gen.writeNumber(((LocalTime) value).toSecondOfDay());
+            }
+        };
+
+        abstract Object convert(Object value);
+
+        /**
+         * Writes the value in its compact form, for formats with native binary values (CBOR).
+         */
+        void writeNative(JsonGenerator gen, Object value) {
+            gen.writeString(value.toString());
+        }
+
+        Object read(JsonParser p, JsonToken token) {
+            return switch (token) {
+                case VALUE_NULL -> null;
+                case VALUE_STRING -> convert(p.getString());
+                case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> convert(p.getNumberValue());
+                case VALUE_TRUE -> convert(Boolean.TRUE);
+                case VALUE_FALSE -> convert(Boolean.FALSE);
+                case VALUE_EMBEDDED_OBJECT -> convert(p.getBinaryValue());
+                default -> throw new IllegalArgumentException("Unexpected " + token + " for a column value");
+            };
+        }
+    }
+
+    static final class Deserializer extends ValueDeserializer<OperationData> {
+
+        @Override
+        public OperationData deserialize(JsonParser p, DeserializationContext ctxt) {
+            if (p.currentToken() != JsonToken.START_OBJECT) {
+                return (OperationData) ctxt.handleUnexpectedToken(OperationData.class, p);
+            }
+            OperationData data = new OperationData();
+            for (String name = p.nextName(); name != null; name = p.nextName()) {
+                JsonToken token = p.nextToken();
+                Column<?> column = COLUMNS.get(name);
+                if (column == null) {
+                    p.skipChildren();
+                    continue;
+                }
+                try {
+                    data.put(column, column.type.read(p, token));
+                } catch (IllegalArgumentException | java.time.DateTimeException e) {
+                    return (OperationData) ctxt.handleWeirdStringValue(OperationData.class, String.valueOf(p.getValueAsString()),
+                            "Invalid value for column '%s': %s", name, e.getMessage());
+                }
+            }
+            return data;
+        }
+    }
+
+    static final class Serializer extends ValueSerializer<OperationData> {
+
+        @Override
+        public void serialize(OperationData data, JsonGenerator gen, SerializationContext ctxt) {
+            boolean binary = gen.streamWriteCapabilities().isEnabled(StreamWriteCapability.CAN_WRITE_BINARY_NATIVELY);
+            gen.writeStartObject();
+            for (Column<?> column : COLUMNS.values()) {
+                if (!data.has(column)) {
+                    continue;
+                }
+                gen.writeName(column.name);
+                Object value = data.values[column.index];
+                if (value == null) {
+                    gen.writeNull();
+                } else if (binary) {
+                    column.type.writeNative(gen, value);
+                } else if (value instanceof Boolean b) {
+                    gen.writeBoolean(b);
+                } else if (value instanceof Integer i) {
+                    gen.writeNumber(i);
+                } else {
+                    gen.writeString(value.toString());
+                }
+            }
+            gen.writeEndObject();
+        }
+    }
+}
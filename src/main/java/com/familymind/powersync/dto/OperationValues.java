@@ -0,0 +1,107 @@
+package com.familymind.powersync.dto;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.UUID;
+
+/**
+ * Converts the scalar values of a client operation's {@code data} into typed column values.
+ *
+ * JSON uploads carry UUIDs, dates and times as strings. Binary (CBOR) uploads may instead send
+ * UUIDs as 16 raw bytes, dates as days since the epoch and times as seconds since midnight,
+ * which skips string parsing entirely.
+ */
+final class OperationValues {
+
+    private OperationValues() {
+        // Private constructor to prevent instantiation
+    }
+
+    static UUID uuid(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof UUID uuid) {
+            return uuid;
+        }
+        if (value instanceof byte[] bytes) {
+            if (bytes.length != 16) {
+                throw new IllegalArgumentException("Binary UUID must be 16 bytes, got " + bytes.length);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            return new UUID(buffer.getLong(), buffer.getLong());
+        }
+        return UUID.fromString(value.toString());
+    }
+
+    static byte[] bytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    static String string(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    static LocalDate localDate(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof LocalDate date) {
+            return date;
+        }
+        if (value instanceof Number epochDay) {
+            return LocalDate.ofEpochDay(epochDay.longValue());
+        }
+        return LocalDate.parse(value.toString());
+    }
+
+    static LocalTime localTime(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof LocalTime time) {
+            return time;
+        }
+        if (value instanceof Number secondOfDay) {
+            return LocalTime.ofSecondOfDay(secondOfDay.longValue());
+        }
+        return LocalTime.parse(value.toString());
+    }
+
+    static Boolean bool(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Boolean b) {
+            return b;
+        }
+        return Boolean.parseBoolean(value.toString());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value has a fractional part or does not fit an {@code int}
+     */
+    static Integer integer(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Integer i) {
+            return i;
+        }
+        if (value instanceof Number number) {
+            BigDecimal decimal = number instanceof BigInteger big ? new BigDecimal(big) : new BigDecimal(number.toString());
+            try {
+                return decimal.intValueExact();
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Expected an integer, got " + number);
+            }
+        }
+        return Integer.parseInt(value.toString());
+    }
+}
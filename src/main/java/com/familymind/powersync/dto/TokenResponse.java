@@ -6,5 +6,6 @@ public record TokenResponse(
         String token,
         UUID memberId,
         UUID familyId,
-        long expiresIn
+        long expiresIn,
+        String powersyncUrl // PowerSync service that syncs the family; differs per shard
 ) {}
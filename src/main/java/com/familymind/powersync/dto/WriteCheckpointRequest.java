@@ -1,7 +1,6 @@
 package com.familymind.powersync.dto;
 
 import java.util.List;
-import java.util.Map;
 
 public record WriteCheckpointRequest(
         List<WriteOperation> operations
@@ -9,6 +8,6 @@ public record WriteCheckpointRequest(
     public record WriteOperation(
             String op,      // "PUT", "PATCH", or "DELETE"
             String table,
-            Map<String, Object> data
+            OperationData data
     ) {}
 }
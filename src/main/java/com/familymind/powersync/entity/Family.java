@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.*;
 
 import java.time.LocalDate;
+import java.time.ZonedDateTime;
 
 /**
  * Entity representing a family group.
@@ -35,5 +36,8 @@ public class Family extends BaseAuditEntity {
 
     @Column(name = "family_image")
     private String familyImage;
+
+    @Column(name = "deleted_at")
+    private ZonedDateTime deletedAt; // Tombstone; the family and everything in it are purged in the background
 }
 
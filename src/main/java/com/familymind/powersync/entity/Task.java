@@ -16,7 +16,8 @@ import java.util.UUID;
 @Table(
     name = "task",
     indexes = {
-        @Index(name = "idx_task_list_completed", columnList = "task_list_id, is_completed")
+        @Index(name = "idx_task_list_completed", columnList = "task_list_id, is_completed"),
+        @Index(name = "idx_task_list_rank", columnList = "task_list_id, rank")
     }
 )
 @Getter
@@ -69,7 +70,10 @@ public class Task extends BaseAuditEntity {
     private UUID subTaskOfId;
 
     @Column(name = "position")
-    private Integer position;
+    private Integer position; // Legacy integer order, kept in step with rank by the rebalance
+
+    @Column(name = "rank")
+    private String rank; // Fractional ordering key within the list, see RankKeys
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "assigned_to")
@@ -39,6 +39,9 @@ public class TaskList extends BaseAuditEntity {
     @Column(name = "last_activity_at")
     private ZonedDateTime lastActivityAt;
 
+    @Column(name = "deleted_at")
+    private ZonedDateTime deletedAt; // Tombstone; the list and its tasks are purged in the background
+
     @PrePersist
     protected void onTaskListCreate() {
         if (this.lastActivityAt == null) {
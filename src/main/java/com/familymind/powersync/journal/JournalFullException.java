@@ -0,0 +1,12 @@
+package com.familymind.powersync.journal;
+
+/**
+ * Thrown by {@link UploadJournal#append} when the backlog of journaled but not yet applied uploads
+ * has reached its limit. The upload was not journaled and should be retried later.
+ */
+public class JournalFullException extends RuntimeException {
+
+    public JournalFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,151 @@
+package com.familymind.powersync.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * A single memory-mapped file of the upload journal.
+ *
+ * Records are laid out back to back as {@code [int length][int crc][long sequence][payload]}.
+ * A length of 0 means nothing has been written at that position yet, and {@link #END_OF_SEGMENT}
+ * marks a segment that was closed because the next record did not fit.
+ * The length is written last, so a reader never sees a record before its payload.
+ */
+final class JournalSegment {
+
+    static final int RECORD_HEADER_SIZE = 16;
+    static final int END_OF_SEGMENT = -1;
+
+    private static final String FILE_PREFIX = "upload-journal-";
+    private static final String FILE_SUFFIX = ".log";
+
+    private final Path path;
+    private final long baseSequence;
+    private final MappedByteBuffer buffer;
+
+    private JournalSegment(Path path, long baseSequence, MappedByteBuffer buffer) {
+        this.path = path;
+        this.baseSequence = baseSequence;
+        this.buffer = buffer;
+    }
+
+    static JournalSegment create(Path directory, long baseSequence, int size) {
+        Path path = directory.resolve(String.format("%s%020d%s", FILE_PREFIX, baseSequence, FILE_SUFFIX));
+        return new JournalSegment(path, baseSequence, map(path, size));
+    }
+
+    static JournalSegment open(Path path) {
+        try {
+            return new JournalSegment(path, baseSequenceOf(path), map(path, (int) Files.size(path)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open journal segment " + path, e);
+        }
+    }
+
+    static boolean isSegmentFile(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX);
+    }
+
+    private static long baseSequenceOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+    }
+
+    private static MappedByteBuffer map(Path path, int size) {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map journal segment " + path, e);
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long baseSequence() {
+        return baseSequence;
+    }
+
+    int capacity() {
+        return buffer.capacity();
+    }
+
+    boolean fits(int position, int payloadLength) {
+        return position + RECORD_HEADER_SIZE + payloadLength <= buffer.capacity();
+    }
+
+    /**
+     * Writes a record at the given position and returns the position right after it.
+     * Callers must check {@link #fits} first and serialize writes.
+     */
+    int write(int position, long sequence, byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        buffer.put(position + RECORD_HEADER_SIZE, payload);
+        buffer.putLong(position + 8, sequence);
+        buffer.putInt(position + 4, (int) crc.getValue());
+        buffer.putInt(position, payload.length);
+        return position + RECORD_HEADER_SIZE + payload.length;
+    }
+
+    void close(int position) {
+        if (position + Integer.BYTES <= buffer.capacity()) {
+            buffer.putInt(position, END_OF_SEGMENT);
+        }
+    }
+
+    /**
+     * Reads the record at the given position.
+     *
+     * @return the record, {@link Entry#END} if the segment is closed at this position,
+     *         or {@code null} if no complete record has been written there (yet)
+     */
+    Entry read(int position) {
+        if (position + RECORD_HEADER_SIZE > buffer.capacity()) {
+            return Entry.END;
+        }
+        int length = buffer.getInt(position);
+        if (length == END_OF_SEGMENT) {
+            return Entry.END;
+        }
+        if (length <= 0 || !fits(position, length)) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        buffer.get(position + RECORD_HEADER_SIZE, payload);
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+            return null;
+        }
+        return new Entry(buffer.getLong(position + 8), payload, position + RECORD_HEADER_SIZE + length);
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void delete() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete journal segment " + path, e);
+        }
+    }
+
+    /**
+     * A record read back from a segment. {@code nextPosition} is where the following record starts.
+     */
+    record Entry(long sequence, byte[] payload, int nextPosition) {
+        static final Entry END = new Entry(-1, new byte[0], -1);
+    }
+}
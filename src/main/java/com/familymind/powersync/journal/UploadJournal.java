@@ -0,0 +1,347 @@
+package com.familymind.powersync.journal;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Append-only, memory-mapped journal of client upload batches.
+ *
+ * Appends are acknowledged once they are on disk. A single flusher thread batches the fsyncs:
+ * it waits up to {@code flush-interval-ms} (or until {@code flush-batch-size} appends are pending)
+ * and then forces the head segment once for the whole group. Segments closed by a rollover are
+ * forced by the flusher as well, so appends never wait on an fsync while holding the append lock.
+ * The {@link UploadJournalApplier} drains durable records into Postgres and records its progress
+ * in a small checkpoint file, so entries that were not applied before a restart are replayed.
+ * The flusher forces the checkpoint at least every {@code checkpoint-interval-ms}, which bounds
+ * how much already applied work a crash replays.
+ *
+ * Appends are refused with {@link JournalFullException} once {@code max-unapplied-entries} records
+ * await the applier, or when a new segment would exceed {@code max-segments}, so a slow or
+ * unavailable database cannot fill the disk with acknowledged uploads.
+ */
+@Component
+@ConditionalOnProperty(name = "powersync.journal.enabled", havingValue = "true")
+@Slf4j
+public class UploadJournal {
+
+    private static final String CHECKPOINT_FILE = "upload-journal.checkpoint";
+    private static final String DEAD_LETTER_DIRECTORY = "dead-letter";
+
+    @Value("${powersync.journal.directory}")
+    private Path directory;
+
+    @Value("${powersync.journal.segment-size}")
+    private int segmentSize;
+
+    @Value("${powersync.journal.flush-interval-ms}")
+    private long flushIntervalMs;
+
+    @Value("${powersync.journal.flush-batch-size}")
+    private int flushBatchSize;
+
+    @Value("${powersync.journal.checkpoint-interval-ms}")
+    private long checkpointIntervalMs;
+
+    @Value("${powersync.journal.max-unapplied-entries}")
+    private long maxUnappliedEntries;
+
+    @Value("${powersync.journal.max-segments}")
+    private int maxSegments;
+
+    private final ConcurrentSkipListMap<Long, JournalSegment> segments = new ConcurrentSkipListMap<>();
+    private final Object durableMonitor = new Object();
+
+    // Guarded by "this"
+    private JournalSegment head;
+    private int writePosition;
+    private long nextSequence;
+    private List<PendingAppend> pending = new ArrayList<>();
+    private List<JournalSegment> rolled = new ArrayList<>();
+    private boolean running;
+
+    private volatile long durableSequence;
+    private volatile long appliedSequence;
+    private volatile boolean checkpointDirty;
+    private MappedByteBuffer checkpoint;
+    private long checkpointForcedAt;
+    private Thread flusher;
+
+    @PostConstruct
+    void open() throws IOException {
+        Files.createDirectories(directory);
+        checkpoint = mapCheckpoint();
+        appliedSequence = checkpoint.getLong(0);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(JournalSegment::isSegmentFile)
+                    .map(JournalSegment::open)
+                    .forEach(segment -> segments.put(segment.baseSequence(), segment));
+        }
+
+        if (segments.isEmpty()) {
+            head = JournalSegment.create(directory, appliedSequence + 1, segmentSize);
+            segments.put(head.baseSequence(), head);
+            nextSequence = appliedSequence + 1;
+        } else {
+            JournalSegment last = segments.lastEntry().getValue();
+            segments.headMap(last.baseSequence()).values().forEach(this::sealRolled);
+            recoverHead(last);
+        }
+        durableSequence = nextSequence - 1;
+
+        log.info("Upload journal opened at {}: {} segment(s), {} entr(ies) pending replay",
+                directory, segments.size(), durableSequence - appliedSequence);
+
+        running = true;
+        flusher = Thread.ofPlatform().name("upload-journal-flusher").daemon().start(this::flushLoop);
+    }
+
+    /**
+     * Writes the end marker of a rolled segment again if a crash lost it before the segment was forced,
+     * so the applier moves on to the next segment instead of waiting for more records in this one.
+     */
+    private void sealRolled(JournalSegment segment) {
+        int position = 0;
+        JournalSegment.Entry entry;
+        while ((entry = segment.read(position)) != null && entry != JournalSegment.Entry.END) {
+            position = entry.nextPosition();
+        }
+        if (entry == null) {
+            log.warn("Journal segment {} lost its end marker, sealing it at position {}", segment.path(), position);
+            segment.close(position);
+            segment.force();
+        }
+    }
+
+    /**
+     * Finds the end of the last segment, ignoring a torn record left behind by a crash.
+     */
+    private void recoverHead(JournalSegment segment) {
+        head = segment;
+        long lastSequence = segment.baseSequence() - 1;
+        int position = 0;
+        JournalSegment.Entry entry;
+        while ((entry = segment.read(position)) != null && entry != JournalSegment.Entry.END) {
+            lastSequence = entry.sequence();
+            position = entry.nextPosition();
+        }
+        writePosition = entry == JournalSegment.Entry.END ? segment.capacity() : position;
+        nextSequence = Math.max(lastSequence, appliedSequence) + 1;
+    }
+
+    private MappedByteBuffer mapCheckpoint() throws IOException {
+        try (FileChannel channel = FileChannel.open(directory.resolve(CHECKPOINT_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES);
+        }
+    }
+
+    /**
+     * Appends a payload to the journal.
+     *
+     * @return a future completed with the record's sequence number once it has been fsynced
+     * @throws JournalFullException if the unapplied backlog is at its limit
+     */
+    public synchronized CompletableFuture<Long> append(byte[] payload) {
+        if (!running) {
+            throw new IllegalStateException("Upload journal is closed");
+        }
+        if (payload.length + JournalSegment.RECORD_HEADER_SIZE > segmentSize) {
+            throw new IllegalArgumentException("Upload of " + payload.length + " bytes exceeds the journal segment size");
+        }
+        long unapplied = nextSequence - 1 - appliedSequence;
+        if (unapplied >= maxUnappliedEntries) {
+            throw new JournalFullException(unapplied + " uploads are waiting to be applied");
+        }
+        if (!head.fits(writePosition, payload.length)) {
+            if (segments.size() >= maxSegments) {
+                throw new JournalFullException("All " + maxSegments + " journal segments hold unapplied uploads");
+            }
+            roll();
+        }
+
+        long sequence = nextSequence++;
+        writePosition = head.write(writePosition, sequence, payload);
+
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        pending.add(new PendingAppend(sequence, future));
+        if (pending.size() == 1 || pending.size() >= flushBatchSize) {
+            notifyAll();
+        }
+        return future;
+    }
+
+    /**
+     * Closes the head segment and starts a new one. The old segment is handed to the flusher, which
+     * forces it before any later append is acknowledged.
+     */
+    private void roll() {
+        head.close(writePosition);
+        rolled.add(head);
+        head = JournalSegment.create(directory, nextSequence, segmentSize);
+        segments.put(head.baseSequence(), head);
+        writePosition = 0;
+    }
+
+    private void flushLoop() {
+        while (true) {
+            forceCheckpointIfDue();
+
+            List<PendingAppend> batch;
+            List<JournalSegment> toForce;
+            synchronized (this) {
+                try {
+                    if (pending.isEmpty()) {
+                        if (!running) {
+                            return;
+                        }
+                        wait(flushIntervalMs);
+                        continue;
+                    }
+                    if (pending.size() < flushBatchSize && running) {
+                        // Give concurrent uploads a moment to join this fsync
+                        wait(flushIntervalMs);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                batch = pending;
+                pending = new ArrayList<>();
+                toForce = rolled;
+                rolled = new ArrayList<>();
+                toForce.add(head);
+            }
+
+            try {
+                toForce.forEach(JournalSegment::force);
+                publishDurable(batch.getLast().sequence());
+                batch.forEach(append -> append.future().complete(append.sequence()));
+            } catch (RuntimeException e) {
+                log.error("Failed to flush upload journal", e);
+                batch.forEach(append -> append.future().completeExceptionally(e));
+            }
+        }
+    }
+
+    private void publishDurable(long sequence) {
+        synchronized (durableMonitor) {
+            durableSequence = sequence;
+            durableMonitor.notifyAll();
+        }
+    }
+
+    /**
+     * Blocks until the record with the given sequence is durable or the timeout expires.
+     */
+    void awaitDurable(long sequence, long timeoutMs) throws InterruptedException {
+        synchronized (durableMonitor) {
+            if (durableSequence < sequence) {
+                durableMonitor.wait(timeoutMs);
+            }
+        }
+    }
+
+    long durableSequence() {
+        return durableSequence;
+    }
+
+    long appliedSequence() {
+        return appliedSequence;
+    }
+
+    void markApplied(long sequence) {
+        checkpoint.putLong(0, sequence);
+        appliedSequence = sequence;
+        checkpointDirty = true;
+    }
+
+    /**
+     * Forces the checkpoint if it changed and was last forced more than {@code checkpoint-interval-ms} ago.
+     * Only called by the flusher, between batches.
+     */
+    private void forceCheckpointIfDue() {
+        long now = System.nanoTime();
+        if (checkpointDirty && now - checkpointForcedAt >= TimeUnit.MILLISECONDS.toNanos(checkpointIntervalMs)) {
+            checkpointDirty = false;
+            checkpoint.force();
+            checkpointForcedAt = now;
+        }
+    }
+
+    JournalSegment firstSegment() {
+        return segments.firstEntry().getValue();
+    }
+
+    JournalSegment segmentAfter(JournalSegment segment) {
+        Map.Entry<Long, JournalSegment> next = segments.higherEntry(segment.baseSequence());
+        return next != null ? next.getValue() : null;
+    }
+
+    /**
+     * Deletes a segment whose records have all been applied.
+     */
+    void release(JournalSegment segment) {
+        checkpoint.force();
+        segments.remove(segment.baseSequence());
+        try {
+            segment.delete();
+        } catch (UncheckedIOException e) {
+            log.warn("Could not delete applied journal segment {}", segment.path(), e);
+        }
+    }
+
+    /**
+     * Keeps the payload of a record that can never be applied in {@code dead-letter/}, one file per
+     * record named after its sequence, so it survives the release of its segment and can be inspected
+     * or replayed by hand.
+     *
+     * @return the file the payload was written to
+     */
+    Path deadLetter(long sequence, byte[] payload) throws IOException {
+        Path deadLetters = Files.createDirectories(directory.resolve(DEAD_LETTER_DIRECTORY));
+        Path file = deadLetters.resolve(String.format("upload-journal-%020d.bin", sequence));
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(payload);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        return file;
+    }
+
+    @PreDestroy
+    void close() throws InterruptedException {
+        synchronized (this) {
+            running = false;
+            notifyAll();
+        }
+        flusher.join();
+        checkpoint.force();
+        log.info("Upload journal closed at sequence {} (applied {})", durableSequence, appliedSequence);
+    }
+
+    private record PendingAppend(long sequence, CompletableFuture<Long> future) {}
+}
@@ -0,0 +1,231 @@
+package com.familymind.powersync.journal;
+
+import com.familymind.powersync.service.WriteCheckpointService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Drains the {@link UploadJournal} into Postgres.
+ *
+ * A reader thread walks the journal in order and hands every record to one of
+ * {@code powersync.journal.applier-threads} workers, chosen by the uploading family. Each family's
+ * uploads are therefore applied in order, while different families are applied in parallel and a
+ * family whose batch is being retried only holds up the families sharing its worker. Records
+ * journaled without a family are applied by the reader itself, once everything before them is done.
+ *
+ * A batch that fails for any reason other than an unavailable database is dropped: it is counted in
+ * {@code powersync.journal.dropped} and its payload is written to the journal's dead-letter directory.
+ *
+ * The journal's applied position only moves past a record once all records before it are applied,
+ * and a segment is released once that position has passed its last record. Replaying a record that
+ * was applied just before a crash is harmless: PUT saves by id, PATCH sets the same values again and
+ * DELETE ignores rows that are already gone.
+ */
+@Component
+@ConditionalOnProperty(name = "powersync.journal.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class UploadJournalApplier {
+
+    private static final long IDLE_WAIT_MS = 100;
+    private static final long MAX_RETRY_BACKOFF_MS = 30_000;
+    private static final int WORKER_QUEUE_CAPACITY = 256;
+
+    private final UploadJournal journal;
+    private final WriteCheckpointService writeCheckpointService;
+    private final UploadJournalCodec codec;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${powersync.journal.applier-threads}")
+    private int applierThreads;
+
+    private final ConcurrentSkipListSet<Long> inFlight = new ConcurrentSkipListSet<>();
+    private volatile long lastDispatched;
+
+    private volatile boolean running;
+    private Thread reader;
+    private List<Worker> workers = List.of();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        lastDispatched = journal.appliedSequence();
+        workers = IntStream.range(0, applierThreads).mapToObj(Worker::new).toList();
+        reader = Thread.ofPlatform().name("upload-journal-reader").start(this::read);
+    }
+
+    private void read() {
+        Deque<SegmentEnd> finished = new ArrayDeque<>();
+        JournalSegment segment = journal.firstSegment();
+        long lastInSegment = segment.baseSequence() - 1;
+        int position = 0;
+
+        while (running) {
+            try {
+                releaseApplied(finished);
+
+                JournalSegment.Entry entry = segment.read(position);
+                if (entry == JournalSegment.Entry.END) {
+                    JournalSegment next = journal.segmentAfter(segment);
+                    if (next == null) {
+                        journal.awaitDurable(journal.durableSequence() + 1, IDLE_WAIT_MS);
+                        continue;
+                    }
+                    finished.add(new SegmentEnd(segment, lastInSegment));
+                    segment = next;
+                    lastInSegment = segment.baseSequence() - 1;
+                    position = 0;
+                    continue;
+                }
+                if (entry == null || entry.sequence() > journal.durableSequence()) {
+                    journal.awaitDurable(journal.durableSequence() + 1, IDLE_WAIT_MS);
+                    continue;
+                }
+
+                if (entry.sequence() > journal.appliedSequence()) {
+                    dispatch(entry);
+                }
+                lastInSegment = entry.sequence();
+                position = entry.nextPosition();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void dispatch(JournalSegment.Entry entry) throws InterruptedException {
+        inFlight.add(entry.sequence());
+        lastDispatched = entry.sequence();
+
+        UUID familyId = codec.familyOf(entry.payload());
+        if (familyId == null) {
+            while (inFlight.first() < entry.sequence()) {
+                if (!running) {
+                    throw new InterruptedException("Applier stopped");
+                }
+                Thread.sleep(10);
+            }
+            applyWithRetry(entry);
+            completed(entry.sequence());
+            return;
+        }
+
+        Worker worker = workers.get(Math.floorMod(familyId.hashCode(), workers.size()));
+        while (!worker.queue.offer(entry, IDLE_WAIT_MS, TimeUnit.MILLISECONDS)) {
+            if (!running) {
+                throw new InterruptedException("Applier stopped");
+            }
+        }
+    }
+
+    /**
+     * Moves the journal's applied position up to the record before the oldest one still in flight.
+     */
+    private synchronized void completed(long sequence) {
+        inFlight.remove(sequence);
+        // Read before inFlight: every record up to lastDispatched was added to inFlight before it was set
+        long dispatched = lastDispatched;
+        Long oldest = inFlight.ceiling(Long.MIN_VALUE);
+        long applied = oldest != null ? Math.min(oldest - 1, dispatched) : dispatched;
+        if (applied > journal.appliedSequence()) {
+            journal.markApplied(applied);
+        }
+    }
+
+    private void releaseApplied(Deque<SegmentEnd> finished) {
+        while (!finished.isEmpty() && finished.peekFirst().lastSequence() <= journal.appliedSequence()) {
+            journal.release(finished.pollFirst().segment());
+        }
+    }
+
+    private void applyWithRetry(JournalSegment.Entry entry) throws InterruptedException {
+        long backoffMs = 100;
+        while (running) {
+            try {
+                writeCheckpointService.apply(codec.decode(entry.payload()));
+                return;
+            } catch (TransientDataAccessException | CannotCreateTransactionException e) {
+                log.warn("Database unavailable while applying journal entry {}, retrying in {} ms",
+                        entry.sequence(), backoffMs, e);
+                Thread.sleep(backoffMs);
+                backoffMs = Math.min(backoffMs * 2, MAX_RETRY_BACKOFF_MS);
+            } catch (Exception e) {
+                // The batch can never succeed, so it must not block the rest of the journal
+                drop(entry, e);
+                return;
+            }
+        }
+        throw new InterruptedException("Applier stopped");
+    }
+
+    private void drop(JournalSegment.Entry entry, Exception cause) {
+        meterRegistry.counter("powersync.journal.dropped").increment();
+        try {
+            log.error("Dropping journal entry {} that failed to apply, its payload is kept in {}",
+                    entry.sequence(), journal.deadLetter(entry.sequence(), entry.payload()), cause);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+            log.error("Dropping journal entry {} that failed to apply, and its payload could not be kept",
+                    entry.sequence(), cause);
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (reader != null) {
+            reader.join();
+        }
+        for (Worker worker : workers) {
+            worker.thread.join();
+        }
+    }
+
+    private final class Worker {
+
+        private final BlockingQueue<JournalSegment.Entry> queue = new ArrayBlockingQueue<>(WORKER_QUEUE_CAPACITY);
+        private final Thread thread;
+
+        private Worker(int index) {
+            thread = Thread.ofPlatform().name("upload-journal-applier-" + index).start(this::run);
+        }
+
+        private void run() {
+            while (running) {
+                try {
+                    JournalSegment.Entry entry = queue.poll(IDLE_WAIT_MS, TimeUnit.MILLISECONDS);
+                    if (entry != null) {
+                        applyWithRetry(entry);
+                        completed(entry.sequence());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private record SegmentEnd(JournalSegment segment, long lastSequence) {}
+}
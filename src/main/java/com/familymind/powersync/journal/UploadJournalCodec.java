@@ -0,0 +1,75 @@
+package com.familymind.powersync.journal;
+
+import com.familymind.powersync.dto.WriteCheckpointRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import tools.jackson.dataformat.cbor.CBORMapper;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Encodes upload batches for the {@link UploadJournal}.
+ *
+ * Payloads start with a format byte, so the encoding can change without stranding entries written
+ * by an older build. {@link #FORMAT_FAMILY_CBOR} carries the uploading family ahead of the batch, so
+ * the applier can route a record without decoding it. Payloads without a known format byte are rejected.
+ */
+@Component
+@ConditionalOnProperty(name = "powersync.journal.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class UploadJournalCodec {
+
+    static final byte FORMAT_CBOR = 0x01;
+    static final byte FORMAT_FAMILY_CBOR = 0x02;
+
+    private static final int FAMILY_HEADER_SIZE = 1 + 16;
+
+    private final CBORMapper cborMapper;
+
+    /**
+     * @param familyId the uploading family ({@code family_id} claim), or {@code null} if unknown
+     */
+    public byte[] encode(UUID familyId, WriteCheckpointRequest request) {
+        byte[] cbor = cborMapper.writeValueAsBytes(request);
+        if (familyId == null) {
+            return ByteBuffer.allocate(1 + cbor.length).put(FORMAT_CBOR).put(cbor).array();
+        }
+        return ByteBuffer.allocate(FAMILY_HEADER_SIZE + cbor.length)
+                .put(FORMAT_FAMILY_CBOR)
+                .putLong(familyId.getMostSignificantBits())
+                .putLong(familyId.getLeastSignificantBits())
+                .put(cbor)
+                .array();
+    }
+
+    /**
+     * @return the family the payload was uploaded by, or {@code null} if it was journaled without one
+     */
+    public UUID familyOf(byte[] payload) {
+        if (payload.length < FAMILY_HEADER_SIZE || payload[0] != FORMAT_FAMILY_CBOR) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(payload, 1, 16);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the payload does not start with a known format byte
+     */
+    public WriteCheckpointRequest decode(byte[] payload) {
+        if (payload.length == 0) {
+            throw new IllegalArgumentException("Empty journal payload");
+        }
+        byte first = payload[0];
+        if (first == FORMAT_FAMILY_CBOR) {
+            return cborMapper.readValue(payload, FAMILY_HEADER_SIZE, payload.length - FAMILY_HEADER_SIZE,
+                    WriteCheckpointRequest.class);
+        }
+        if (first == FORMAT_CBOR) {
+            return cborMapper.readValue(payload, 1, payload.length - 1, WriteCheckpointRequest.class);
+        }
+        throw new IllegalArgumentException("Unknown journal payload format 0x%02x".formatted(first));
+    }
+}
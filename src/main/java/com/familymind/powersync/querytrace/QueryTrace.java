@@ -0,0 +1,59 @@
+package com.familymind.powersync.querytrace;
+
+/**
+ * Counts the SQL statements executed on the current thread between {@link #start()} and {@link #close()}.
+ *
+ * {@link QueryTraceFilter} opens one per HTTP request; tests open their own to assert a statement budget.
+ * Traces nest: closing an inner trace restores the outer one, and statements are counted by the
+ * innermost trace only.
+ */
+public final class QueryTrace implements AutoCloseable {
+
+    private static final ThreadLocal<QueryTrace> CURRENT = new ThreadLocal<>();
+
+    private final QueryTrace previous;
+    private int statements;
+    private long elapsedMillis;
+
+    private QueryTrace(QueryTrace previous) {
+        this.previous = previous;
+    }
+
+    public static QueryTrace start() {
+        QueryTrace trace = new QueryTrace(CURRENT.get());
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    /**
+     * @return the trace open on this thread, or {@code null} if none is
+     */
+    static QueryTrace current() {
+        return CURRENT.get();
+    }
+
+    void record(long elapsedMillis) {
+        this.statements++;
+        this.elapsedMillis += elapsedMillis;
+    }
+
+    /**
+     * Number of statement executions (a JDBC batch counts once, as it is a single round trip).
+     */
+    public int statements() {
+        return statements;
+    }
+
+    public long elapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public void close() {
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+}
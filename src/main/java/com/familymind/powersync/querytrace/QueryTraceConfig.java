@@ -0,0 +1,40 @@
+package com.familymind.powersync.querytrace;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * SQL tracing ({@code powersync.query-trace.enabled}): wraps the application DataSource in a
+ * datasource-proxy so that statements from Hibernate, JdbcTemplate and Liquibase are all seen by
+ * {@link QueryTraceListener}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "powersync.query-trace.enabled", havingValue = "true")
+public class QueryTraceConfig {
+
+    @Bean
+    public static BeanPostProcessor queryTraceDataSourceProxy(
+            @Value("${powersync.query-trace.slow-threshold-ms}") long slowThresholdMillis,
+            @Value("${powersync.query-trace.slow-sample-rate}") double slowSampleRate) {
+        QueryTraceListener listener = new QueryTraceListener(slowThresholdMillis, slowSampleRate);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(listener)
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,79 @@
+package com.familymind.powersync.querytrace;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Opens a {@link QueryTrace} for each HTTP request and records how many statements it issued and how
+ * long they took ({@code powersync.request.sql.statements} and {@code powersync.request.sql.time},
+ * tagged with the matched route). Requests above the warn threshold are logged, which is where
+ * N+1 patterns show up.
+ */
+@Component
+@Order(2)
+@ConditionalOnProperty(name = "powersync.query-trace.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class QueryTraceFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${powersync.query-trace.request-statement-warn-threshold}")
+    private int statementWarnThreshold;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryTrace trace = QueryTrace.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            trace.close();
+            if (trace.statements() > 0) {
+                record(request, trace);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, QueryTrace trace) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String route = pattern != null ? pattern.toString() : "UNKNOWN";
+
+        DistributionSummary.builder("powersync.request.sql.statements")
+                .description("SQL statements issued per HTTP request")
+                .tag("method", request.getMethod())
+                .tag("uri", route)
+                .register(meterRegistry)
+                .record(trace.statements());
+        Timer.builder("powersync.request.sql.time")
+                .description("Time spent executing SQL per HTTP request")
+                .tag("method", request.getMethod())
+                .tag("uri", route)
+                .register(meterRegistry)
+                .record(Duration.ofMillis(trace.elapsedMillis()));
+
+        if (trace.statements() > statementWarnThreshold) {
+            log.warn("{} {} issued {} SQL statements ({} ms)",
+                    request.getMethod(), route, trace.statements(), trace.elapsedMillis());
+        } else {
+            log.debug("{} {} issued {} SQL statements ({} ms)",
+                    request.getMethod(), route, trace.statements(), trace.elapsedMillis());
+        }
+    }
+}
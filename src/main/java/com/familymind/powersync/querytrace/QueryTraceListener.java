@@ -0,0 +1,69 @@
+package com.familymind.powersync.querytrace;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Records every statement into the current {@link QueryTrace} and logs a sample of slow ones.
+ *
+ * Slow statements are logged with their bind shapes (the type of each parameter) rather than the
+ * values, so the log shows which statement and parameter pattern was slow without leaking user data.
+ */
+@RequiredArgsConstructor
+@Slf4j
+class QueryTraceListener implements QueryExecutionListener {
+
+    private final long slowThresholdMillis;
+    private final double slowSampleRate;
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        QueryTrace trace = QueryTrace.current();
+        if (trace != null) {
+            trace.record(execInfo.getElapsedTime());
+        }
+
+        if (execInfo.getElapsedTime() >= slowThresholdMillis && ThreadLocalRandom.current().nextDouble() < slowSampleRate) {
+            for (QueryInfo query : queryInfoList) {
+                log.warn("Slow SQL ({} ms{}): {} binds={}",
+                        execInfo.getElapsedTime(),
+                        execInfo.isBatch() ? ", batch of " + execInfo.getBatchSize() : "",
+                        query.getQuery(),
+                        bindShape(query));
+            }
+        }
+    }
+
+    private static String bindShape(QueryInfo query) {
+        List<List<ParameterSetOperation>> parameters = query.getParametersList();
+        if (parameters.isEmpty()) {
+            return "[]";
+        }
+        // Every row of a batch shares the statement, so the first row shows the shape
+        String shape = parameters.getFirst().stream()
+                .map(QueryTraceListener::parameterType)
+                .collect(Collectors.joining(", ", "[", "]"));
+        return parameters.size() > 1 ? shape + " x " + parameters.size() : shape;
+    }
+
+    private static String parameterType(ParameterSetOperation operation) {
+        if (ParameterSetOperation.isSetNullParameterOperation(operation)) {
+            return "null";
+        }
+        Object[] args = operation.getArgs();
+        Object value = args.length > 1 ? args[1] : null;
+        return value != null ? value.getClass().getSimpleName() : "null";
+    }
+}
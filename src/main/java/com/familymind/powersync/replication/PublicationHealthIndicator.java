@@ -0,0 +1,29 @@
+package com.familymind.powersync.replication;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the {@code powersync} publication as down when it no longer covers every synced table,
+ * in which case changes to the missing tables silently stop reaching clients.
+ */
+@Component
+@RequiredArgsConstructor
+public class PublicationHealthIndicator implements HealthIndicator {
+
+    private final ReplicationSlotMonitor monitor;
+
+    @Override
+    public Health health() {
+        return monitor.latest().map(sample -> {
+            Health.Builder builder = sample.missingTables().isEmpty() ? Health.up() : Health.down();
+            return builder
+                    .withDetail("tables", ReplicationSlotMonitor.PUBLISHED_TABLES)
+                    .withDetail("missingTables", sample.missingTables())
+                    .withDetail("sampledAt", sample.sampledAt())
+                    .build();
+        }).orElseGet(() -> Health.unknown().withDetail("reason", "Not sampled yet").build());
+    }
+}
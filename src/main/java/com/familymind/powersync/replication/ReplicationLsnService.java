@@ -0,0 +1,97 @@
+package com.familymind.powersync.replication;
+
+import com.familymind.powersync.sharding.ShardContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Tracks how far PowerSync has consumed the WAL, so clients can wait for their own writes to
+ * come back through replication instead of polling.
+ *
+ * Waiters are plain futures, so no request thread is held while waiting. A single scheduled poll
+ * reads the {@code confirmed_flush_lsn} of the PowerSync replication slot, and only does so while
+ * someone is waiting. With sharding, each waiter remembers the shard it was registered on and is
+ * compared against that shard's slot.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReplicationLsnService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConcurrentLinkedQueue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    @Value("${powersync.replication.slot-name-pattern}")
+    private String slotNamePattern;
+
+    /**
+     * The current WAL write position. Read after a commit, it is at or past that commit's record.
+     */
+    public long currentWalLsn() {
+        return WalLsn.parse(jdbcTemplate.queryForObject("SELECT pg_current_wal_lsn()::text", String.class));
+    }
+
+    /**
+     * The furthest position PowerSync has confirmed, or {@code null} if no PowerSync slot exists.
+     * When PowerSync runs two slots (while sync rules are being redeployed), the one further ahead is
+     * the one serving clients.
+     */
+    public Long confirmedFlushLsn() {
+        String lsn = jdbcTemplate.queryForObject("""
+                SELECT max(confirmed_flush_lsn)::text FROM pg_replication_slots
+                WHERE slot_type = 'logical' AND slot_name LIKE ?""", String.class, slotNamePattern);
+        return lsn != null ? WalLsn.parse(lsn) : null;
+    }
+
+    /**
+     * @return a future completed with the confirmed position once it has reached {@code lsn}
+     */
+    public CompletableFuture<Long> awaitConfirmed(long lsn) {
+        Waiter waiter = new Waiter(lsn, ShardContext.current(), new CompletableFuture<>());
+        waiters.add(waiter);
+        return waiter.future();
+    }
+
+    @Scheduled(fixedDelayString = "${powersync.replication.poll-interval-ms}")
+    void poll() {
+        waiters.removeIf(waiter -> waiter.future().isDone());
+        if (waiters.isEmpty()) {
+            return;
+        }
+
+        Set<Integer> shards = new LinkedHashSet<>();
+        waiters.forEach(waiter -> shards.add(waiter.shard()));
+        for (Integer shard : shards) {
+            Long confirmed;
+            try {
+                confirmed = ShardContext.call(shard, this::confirmedFlushLsn);
+            } catch (RuntimeException e) {
+                log.warn("Could not read the PowerSync replication slot position", e);
+                continue;
+            }
+            if (confirmed == null) {
+                continue;
+            }
+
+            waiters.removeIf(waiter -> {
+                if (Objects.equals(waiter.shard(), shard) && waiter.lsn() <= confirmed) {
+                    waiter.future().complete(confirmed);
+                    return true;
+                }
+                return false;
+            });
+        }
+    }
+
+    private record Waiter(long lsn, Integer shard, CompletableFuture<Long> future) {}
+}
@@ -0,0 +1,43 @@
+package com.familymind.powersync.replication;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the PowerSync replication slot as down when it retains more WAL than allowed or has
+ * already lost WAL. A slot that stops advancing keeps WAL on disk until the database runs out of space.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReplicationSlotHealthIndicator implements HealthIndicator {
+
+    private final ReplicationSlotMonitor monitor;
+
+    @Value("${powersync.replication.max-retained-wal-bytes}")
+    private long maxRetainedWalBytes;
+
+    @Override
+    public Health health() {
+        return monitor.latest().map(sample -> {
+            if (sample.slots().isEmpty()) {
+                return Health.unknown().withDetail("reason", "No PowerSync replication slot found").build();
+            }
+
+            Health.Builder builder = Health.up();
+            for (ReplicationSlotMonitor.SlotStatus slot : sample.slots()) {
+                if (slot.retainedBytes() > maxRetainedWalBytes || "lost".equals(slot.walStatus())) {
+                    builder.down();
+                }
+                builder.withDetail(slot.name(), slot);
+            }
+            return builder
+                    .withDetail("maxRetainedWalBytes", maxRetainedWalBytes)
+                    .withDetail("decodedBytesPerSecond", sample.decodedBytesPerSecond())
+                    .withDetail("sampledAt", sample.sampledAt())
+                    .build();
+        }).orElseGet(() -> Health.unknown().withDetail("reason", "Not sampled yet").build());
+    }
+}
@@ -0,0 +1,148 @@
+package com.familymind.powersync.replication;
+
+import com.familymind.powersync.sharding.ShardContext;
+import com.familymind.powersync.sharding.Shards;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Samples the PowerSync replication slot(s) and the {@code powersync} publication on a fixed schedule.
+ *
+ * The latest {@link Sample} backs the Micrometer gauges registered here and the
+ * {@link ReplicationSlotHealthIndicator} and {@link PublicationHealthIndicator}, so neither metrics
+ * scrapes nor health checks ever query the database themselves. With sharding, every shard is sampled
+ * and slot and table names are prefixed with their shard ({@code shard-1/powersync}).
+ */
+@Component
+@Slf4j
+public class ReplicationSlotMonitor {
+
+    /**
+     * Tables the sync rules read from; the publication must cover all of them.
+     */
+    static final Set<String> PUBLISHED_TABLES = Set.of("family", "member", "task_list", "task");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Shards shards;
+    private final String slotNamePattern;
+
+    private volatile Sample latest;
+    private Long previousDecodedBytes;
+    private Instant previousSampledAt;
+
+    public ReplicationSlotMonitor(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry, Shards shards,
+                                  @Value("${powersync.replication.slot-name-pattern}") String slotNamePattern) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shards = shards;
+        this.slotNamePattern = slotNamePattern;
+
+        Gauge.builder("powersync.replication.slot.lag", this, m -> m.value(Sample::maxLagBytes))
+                .description("WAL bytes not yet confirmed by the PowerSync slot")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("powersync.replication.slot.retained.wal", this, m -> m.value(Sample::maxRetainedBytes))
+                .description("WAL bytes held back on disk by the PowerSync slot")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("powersync.replication.decoding.throughput", this, m -> m.value(Sample::decodedBytesPerSecond))
+                .description("Bytes decoded for PowerSync per second")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("powersync.replication.slots", this, m -> m.value(sample -> sample.slots().size()))
+                .description("Number of PowerSync replication slots")
+                .register(meterRegistry);
+        Gauge.builder("powersync.replication.publication.missing.tables", this,
+                        m -> m.value(sample -> sample.missingTables().size()))
+                .description("Synced tables missing from the powersync publication")
+                .register(meterRegistry);
+    }
+
+    public Optional<Sample> latest() {
+        return Optional.ofNullable(latest);
+    }
+
+    @Scheduled(fixedDelayString = "${powersync.replication.monitor-interval-ms}")
+    void sample() {
+        try {
+            Instant now = Instant.now();
+            List<SlotStatus> slots = new ArrayList<>();
+            Set<String> missingTables = new TreeSet<>();
+            for (int shard : shards.ids()) {
+                String prefix = shards.count() > 1 ? "shard-" + shard + "/" : "";
+                ShardContext.run(shard, () -> {
+                    slots.addAll(sampleSlots(prefix));
+                    missingTables.addAll(missingTables(prefix));
+                });
+            }
+
+            long decodedBytes = slots.stream().mapToLong(SlotStatus::decodedBytes).sum();
+            double throughput = 0;
+            if (previousDecodedBytes != null && decodedBytes >= previousDecodedBytes) {
+                double seconds = Math.max(0.001, (now.toEpochMilli() - previousSampledAt.toEpochMilli()) / 1000.0);
+                throughput = (decodedBytes - previousDecodedBytes) / seconds;
+            }
+            previousDecodedBytes = decodedBytes;
+            previousSampledAt = now;
+
+            latest = new Sample(now, slots, missingTables, throughput);
+        } catch (RuntimeException e) {
+            log.warn("Could not sample replication slot status", e);
+        }
+    }
+
+    private List<SlotStatus> sampleSlots(String prefix) {
+        return jdbcTemplate.query("""
+                SELECT s.slot_name, s.active, s.wal_status,
+                       pg_wal_lsn_diff(pg_current_wal_lsn(), s.confirmed_flush_lsn)::bigint AS lag_bytes,
+                       pg_wal_lsn_diff(pg_current_wal_lsn(), s.restart_lsn)::bigint AS retained_bytes,
+                       st.total_bytes
+                FROM pg_replication_slots s
+                LEFT JOIN pg_stat_replication_slots st ON st.slot_name = s.slot_name
+                WHERE s.slot_type = 'logical' AND s.slot_name LIKE ?""",
+                (rs, rowNum) -> new SlotStatus(
+                        prefix + rs.getString("slot_name"),
+                        rs.getBoolean("active"),
+                        rs.getString("wal_status"),
+                        rs.getLong("lag_bytes"),
+                        rs.getLong("retained_bytes"),
+                        rs.getLong("total_bytes")),
+                slotNamePattern);
+    }
+
+    private Set<String> missingTables(String prefix) {
+        Set<String> missing = new TreeSet<>(PUBLISHED_TABLES);
+        missing.removeAll(jdbcTemplate.queryForList(
+                "SELECT tablename FROM pg_publication_tables WHERE pubname = 'powersync'", String.class));
+        return missing.stream().map(table -> prefix + table).collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private double value(ToDoubleFunction<Sample> metric) {
+        Sample sample = latest;
+        return sample != null ? metric.applyAsDouble(sample) : Double.NaN;
+    }
+
+    public record SlotStatus(String name, boolean active, String walStatus,
+                             long lagBytes, long retainedBytes, long decodedBytes) {}
+
+    public record Sample(Instant sampledAt, List<SlotStatus> slots, Set<String> missingTables,
+                         double decodedBytesPerSecond) {
+
+        public long maxLagBytes() {
+            return slots.stream().mapToLong(SlotStatus::lagBytes).max().orElse(0);
+        }
+
+        public long maxRetainedBytes() {
+            return slots.stream().mapToLong(SlotStatus::retainedBytes).max().orElse(0);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.familymind.powersync.replication;
+
+/**
+ * Conversion between PostgreSQL's textual WAL positions ({@code pg_lsn}, e.g. {@code 16/B374D848})
+ * and their 64-bit numeric value, which is what makes two positions comparable.
+ */
+public final class WalLsn {
+
+    private WalLsn() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value is not a valid {@code pg_lsn}
+     */
+    public static long parse(String lsn) {
+        int slash = lsn != null ? lsn.indexOf('/') : -1;
+        if (slash <= 0 || slash == lsn.length() - 1) {
+            throw new IllegalArgumentException("Invalid LSN: " + lsn);
+        }
+        try {
+            long high = Long.parseLong(lsn.substring(0, slash), 16);
+            long low = Long.parseLong(lsn.substring(slash + 1), 16);
+            if (high > 0xFFFFFFFFL || low > 0xFFFFFFFFL) {
+                throw new IllegalArgumentException("Invalid LSN: " + lsn);
+            }
+            return (high << 32) | low;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid LSN: " + lsn, e);
+        }
+    }
+
+    public static String format(long lsn) {
+        return Long.toHexString(lsn >>> 32).toUpperCase() + "/" + Long.toHexString(lsn & 0xFFFFFFFFL).toUpperCase();
+    }
+}
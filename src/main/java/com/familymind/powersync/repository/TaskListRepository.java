@@ -8,4 +8,9 @@ import java.util.UUID;
 
 @Repository
 public interface TaskListRepository extends JpaRepository<TaskList, UUID> {
+
+    /**
+     * @return whether the task list exists, belongs to the family and is not tombstoned
+     */
+    boolean existsByIdAndFamily_IdAndDeletedAtIsNull(UUID id, UUID familyId);
 }
@@ -2,10 +2,41 @@ package com.familymind.powersync.repository;
 
 import com.familymind.powersync.entity.Task;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.UUID;
 
 @Repository
 public interface TaskRepository extends JpaRepository<Task, UUID> {
+
+    /**
+     * Rewrites the ranks (and positions) of a list's tasks to evenly spaced keys in their current order,
+     * in one statement. Subtasks are ordered among their siblings. Rows whose rank and position already
+     * match are left untouched, so they produce no replication traffic.
+     *
+     * @return the number of tasks whose order keys changed
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = """
+            UPDATE task t
+            SET rank = r.new_rank, position = r.new_position
+            FROM (
+                SELECT id,
+                       lpad(to_hex(n), 8, '0') || '8' AS new_rank,
+                       n - 1 AS new_position
+                FROM (
+                    SELECT id, row_number() OVER (
+                               PARTITION BY sub_task_of_id
+                               ORDER BY rank NULLS LAST, position NULLS LAST, created_at, id) AS n
+                    FROM task
+                    WHERE task_list_id = :taskListId
+                ) ordered
+            ) r
+            WHERE t.id = r.id
+              AND (t.rank IS DISTINCT FROM r.new_rank OR t.position IS DISTINCT FROM r.new_position)
+            """, nativeQuery = true)
+    int rebalanceRanks(@Param("taskListId") UUID taskListId);
 }
@@ -0,0 +1,53 @@
+package com.familymind.powersync.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Reads the bearer token of a request, for filters and endpoints that act on its claims.
+ */
+@Component
+@RequiredArgsConstructor
+public class BearerTokens {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtService jwtService;
+
+    /**
+     * @return the verified claims, or {@code null} if the request has no valid bearer token
+     */
+    public Claims claims(HttpServletRequest request) {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+            return null;
+        }
+        try {
+            return jwtService.parseClaims(authorization.substring(BEARER_PREFIX.length()));
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the {@code family_id} claim, or {@code null} if it is missing or there is no valid bearer token
+     */
+    public UUID familyId(HttpServletRequest request) {
+        Claims claims = claims(request);
+        if (claims == null) {
+            return null;
+        }
+        try {
+            String familyId = claims.get("family_id", String.class);
+            return familyId != null ? UUID.fromString(familyId) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
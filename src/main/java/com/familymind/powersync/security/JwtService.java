@@ -1,5 +1,6 @@
 package com.familymind.powersync.security;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
@@ -26,7 +27,7 @@ public class JwtService {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + expiration);
 
-        SecretKey key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        SecretKey key = signingKey();
 
         return Jwts.builder()
                 .header()
@@ -41,4 +42,22 @@ public class JwtService {
                 .signWith(key)
                 .compact();
     }
+
+    /**
+     * Verifies the signature, expiry and audience of a token issued by {@link #generateToken}.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is not valid
+     */
+    public Claims parseClaims(String token) {
+        return Jwts.parser()
+                .verifyWith(signingKey())
+                .requireAudience(audience)
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    private SecretKey signingKey() {
+        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    }
 }
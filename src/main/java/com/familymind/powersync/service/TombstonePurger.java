@@ -0,0 +1,117 @@
+package com.familymind.powersync.service;
+
+import com.familymind.powersync.replication.ReplicationSlotMonitor;
+import com.familymind.powersync.sharding.ShardContext;
+import com.familymind.powersync.sharding.Shards;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Purges tombstoned task lists and families in the background, one bounded chunk per tick.
+ *
+ * Each tick deletes at most {@code powersync.purge.chunk-size} rows in its own transaction, so locks
+ * are short and PowerSync decodes a steady trickle of deletes instead of one burst. Ticks are skipped
+ * while the replication slot is further behind than {@code powersync.purge.max-replication-lag-bytes}.
+ * With sharding, each tick purges one chunk on every shard.
+ *
+ * Tasks go first, leaves before their parents, so the {@code fk_task_parent_task} cascade never fans
+ * out. Only once a task list or family has nothing left below it is its own row deleted.
+ */
+@Component
+@ConditionalOnProperty(name = "powersync.purge.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class TombstonePurger {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ReplicationSlotMonitor replicationSlotMonitor;
+    private final Shards shards;
+
+    @Value("${powersync.purge.chunk-size}")
+    private int chunkSize;
+
+    @Value("${powersync.purge.max-replication-lag-bytes}")
+    private long maxReplicationLagBytes;
+
+    @Scheduled(fixedDelayString = "${powersync.purge.chunk-interval-ms}")
+    void purgeNextChunk() {
+        long lagBytes = replicationSlotMonitor.latest().map(ReplicationSlotMonitor.Sample::maxLagBytes).orElse(0L);
+        if (lagBytes > maxReplicationLagBytes) {
+            log.debug("Replication is {} bytes behind, postponing purge", lagBytes);
+            return;
+        }
+
+        for (int shard : shards.ids()) {
+            try {
+                ShardContext.run(shard, () -> transactionTemplate.executeWithoutResult(status -> purgeChunk()));
+            } catch (RuntimeException e) {
+                log.warn("Purge chunk failed on shard {}, retrying on the next tick", shard, e);
+            }
+        }
+    }
+
+    private void purgeChunk() {
+        UUID taskListId = oldestTombstone("task_list");
+        if (taskListId != null) {
+            if (deleteTasks("task_list_id", taskListId) == 0) {
+                jdbcTemplate.update("DELETE FROM task_list WHERE id = ? AND deleted_at IS NOT NULL", taskListId);
+                log.info("Purged deleted task list {}", taskListId);
+            }
+            return;
+        }
+
+        UUID familyId = oldestTombstone("family");
+        if (familyId != null) {
+            if (deleteTasks("family_id", familyId) == 0
+                    && deleteChunk("task_list", familyId) == 0
+                    && deleteChunk("member", familyId) == 0) {
+                jdbcTemplate.update("DELETE FROM family WHERE id = ? AND deleted_at IS NOT NULL", familyId);
+                log.info("Purged deleted family {}", familyId);
+            }
+        }
+    }
+
+    private UUID oldestTombstone(String table) {
+        List<UUID> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM " + table + " WHERE deleted_at IS NOT NULL ORDER BY deleted_at LIMIT 1", UUID.class);
+        return ids.isEmpty() ? null : ids.getFirst();
+    }
+
+    /**
+     * Deletes one chunk of tasks, preferring tasks without subtasks.
+     *
+     * @return the number of tasks deleted, 0 once none are left
+     */
+    private int deleteTasks(String column, UUID id) {
+        int deleted = jdbcTemplate.update("""
+                DELETE FROM task WHERE id IN (
+                    SELECT t.id FROM task t
+                    WHERE t.%s = ?
+                      AND NOT EXISTS (SELECT 1 FROM task c WHERE c.sub_task_of_id = t.id)
+                    LIMIT ?)""".formatted(column), id, chunkSize);
+        if (deleted == 0) {
+            // Only tasks whose subtasks live elsewhere can remain; let the cascade take those
+            deleted = jdbcTemplate.update(
+                    "DELETE FROM task WHERE id IN (SELECT id FROM task WHERE %s = ? LIMIT ?)".formatted(column),
+                    id, chunkSize);
+        }
+        log.debug("Purged {} tasks of {} {}", deleted, column, id);
+        return deleted;
+    }
+
+    private int deleteChunk(String table, UUID familyId) {
+        return jdbcTemplate.update(
+                "DELETE FROM " + table + " WHERE id IN (SELECT id FROM " + table + " WHERE family_id = ? LIMIT ?)",
+                familyId, chunkSize);
+    }
+}
@@ -0,0 +1,258 @@
+package com.familymind.powersync.service;
+
+import com.familymind.powersync.dto.OperationData;
+import com.familymind.powersync.dto.WriteCheckpointRequest;
+import com.familymind.powersync.entity.Family;
+import com.familymind.powersync.entity.Member;
+import com.familymind.powersync.entity.Task;
+import com.familymind.powersync.entity.TaskList;
+import com.familymind.powersync.repository.FamilyRepository;
+import com.familymind.powersync.repository.MemberRepository;
+import com.familymind.powersync.repository.TaskListRepository;
+import com.familymind.powersync.repository.TaskRepository;
+import com.familymind.powersync.util.RankKeys;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.ZonedDateTime;
+import java.util.*;
+
+import static com.familymind.powersync.dto.OperationData.*;
+
+/**
+ * Applies PowerSync client upload batches to the database.
+ * A batch is applied in a single transaction, so either every operation is committed or none is.
+ *
+ * Task order is carried by fractional {@code rank} keys ({@link RankKeys}), so a move is a single
+ * {@code rank} PATCH. When a batch writes a rank longer than {@code powersync.task-rank.rebalance-length},
+ * the affected list is rebalanced in the same transaction.
+ *
+ * Deleting a task list only sets its {@code deleted_at} tombstone, which hides it from sync immediately.
+ * The tasks below it are removed in small chunks by {@link TombstonePurger}, instead of one cascading
+ * delete that locks and replicates thousands of rows at once. A PUT of a tombstoned list is ignored, so a
+ * client that has not synced the delete yet cannot bring the list back.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WriteCheckpointService {
+
+    private final TaskRepository taskRepository;
+    private final TaskListRepository taskListRepository;
+    private final MemberRepository memberRepository;
+    private final FamilyRepository familyRepository;
+    private final EntityManager entityManager;
+
+    @Value("${powersync.task-rank.rebalance-length}")
+    private int rebalanceRankLength;
+
+    @Transactional
+    public List<Map<String, Object>> apply(WriteCheckpointRequest request) {
+        List<Map<String, Object>> results = new ArrayList<>();
+        Set<UUID> denseTaskLists = new LinkedHashSet<>();
+
+        for (var operation : request.operations()) {
+            processOperation(operation, denseTaskLists);
+            results.add(Map.of(
+                    "op", operation.op(),
+                    "table", operation.table(),
+                    "success", true
+            ));
+        }
+
+        denseTaskLists.forEach(this::rebalance);
+
+        return results;
+    }
+
+    /**
+     * Rewrites a task list's ranks to evenly spaced keys, keeping the current order.
+     *
+     * @return the number of tasks whose rank or position changed
+     */
+    @Transactional
+    public int rebalance(UUID taskListId) {
+        int rebalanced = taskRepository.rebalanceRanks(taskListId);
+        log.info("Rebalanced ranks of task list {} ({} tasks rewritten)", taskListId, rebalanced);
+        return rebalanced;
+    }
+
+    /**
+     * Rebalances a task list on behalf of a family.
+     *
+     * @return the number of tasks whose rank or position changed, or empty, without touching anything,
+     *         if the list is not a live list of the family
+     */
+    @Transactional
+    public OptionalInt rebalance(UUID familyId, UUID taskListId) {
+        if (!taskListRepository.existsByIdAndFamily_IdAndDeletedAtIsNull(taskListId, familyId)) {
+            return OptionalInt.empty();
+        }
+        return OptionalInt.of(rebalance(taskListId));
+    }
+
+    private void processOperation(WriteCheckpointRequest.WriteOperation operation, Set<UUID> denseTaskLists) {
+        switch (operation.table()) {
+            case "task" -> processTaskOperation(operation, denseTaskLists);
+            case "task_list" -> processTaskListOperation(operation);
+            case "member" -> processMemberOperation(operation);
+            case "family" -> processFamilyOperation(operation);
+            default -> log.warn("Unknown table: {}", operation.table());
+        }
+    }
+
+    private void processTaskOperation(WriteCheckpointRequest.WriteOperation op, Set<UUID> denseTaskLists) {
+        OperationData data = op.data();
+        UUID id = data.get(ID);
+
+        switch (op.op()) {
+            case "PUT" -> {
+                Task task = taskRepository.findById(id).orElse(null);
+                boolean created = task == null;
+                if (created) {
+                    task = new Task();
+                    task.setId(id);
+                }
+                task.setTitle(data.get(TITLE));
+                task.setDescription(data.get(DESCRIPTION));
+                task.setIsCompleted(Boolean.TRUE.equals(data.get(IS_COMPLETED)));
+
+                if (data.get(TASK_LIST_ID) != null) {
+                    UUID taskListId = data.get(TASK_LIST_ID);
+                    task.setTaskList(entityManager.getReference(TaskList.class, taskListId));
+                }
+                if (data.get(ASSIGNED_TO) != null) {
+                    UUID assignedToId = data.get(ASSIGNED_TO);
+                    task.setAssignedTo(entityManager.getReference(Member.class, assignedToId));
+                }
+                if (data.get(TASK_DATE) != null) {
+                    task.setTaskDate(data.get(TASK_DATE));
+                }
+                if (data.get(TASK_TIME) != null) {
+                    task.setTaskTime(data.get(TASK_TIME));
+                }
+                if (data.get(POSITION) != null) {
+                    task.setPosition(data.get(POSITION));
+                }
+                if (data.get(RANK) != null) {
+                    task.setRank(RankKeys.requireValid(data.get(RANK)));
+                    if (task.getRank().length() > rebalanceRankLength && data.get(TASK_LIST_ID) != null) {
+                        denseTaskLists.add(data.get(TASK_LIST_ID));
+                    }
+                }
+
+                if (created) {
+                    entityManager.persist(task);
+                } else {
+                    taskRepository.save(task);
+                }
+            }
+            case "PATCH" -> taskRepository.findById(id).ifPresent(task -> {
+                if (data.has(TITLE)) task.setTitle(data.get(TITLE));
+                if (data.has(DESCRIPTION)) task.setDescription(data.get(DESCRIPTION));
+                if (data.has(IS_COMPLETED)) {
+                    task.setIsCompleted(Boolean.TRUE.equals(data.get(IS_COMPLETED)));
+                    if (task.getIsCompleted()) {
+                        task.setCompletedAt(ZonedDateTime.now());
+                    }
+                }
+                if (data.has(TASK_DATE)) {
+                    task.setTaskDate(data.get(TASK_DATE));
+                }
+                if (data.has(POSITION)) {
+                    task.setPosition(data.get(POSITION));
+                }
+                if (data.has(RANK)) {
+                    task.setRank(data.get(RANK) != null ? RankKeys.requireValid(data.get(RANK)) : null);
+                    if (task.getRank() != null && task.getRank().length() > rebalanceRankLength) {
+                        denseTaskLists.add(task.getTaskList().getId());
+                    }
+                }
+                taskRepository.save(task);
+            });
+            case "DELETE" -> taskRepository.deleteById(id);
+        }
+    }
+
+    private void processTaskListOperation(WriteCheckpointRequest.WriteOperation op) {
+        OperationData data = op.data();
+        UUID id = data.get(ID);
+
+        switch (op.op()) {
+            case "PUT" -> {
+                TaskList taskList = taskListRepository.findById(id).orElse(null);
+                if (taskList != null && taskList.getDeletedAt() != null) {
+                    // A deleted list stays deleted; a PUT from a client that has not seen the delete yet is dropped
+                    log.debug("Ignoring PUT of deleted task list {}", id);
+                    return;
+                }
+                boolean created = taskList == null;
+                if (created) {
+                    taskList = new TaskList();
+                    taskList.setId(id);
+                }
+                taskList.setName(data.get(NAME));
+                if (data.get(FAMILY_ID) != null) {
+                    UUID familyId = data.get(FAMILY_ID);
+                    taskList.setFamily(entityManager.getReference(Family.class, familyId));
+                }
+                if (data.get(SORT_BY) != null) {
+                    taskList.setSortBy(data.get(SORT_BY));
+                }
+                if (created) {
+                    entityManager.persist(taskList);
+                } else {
+                    taskListRepository.save(taskList);
+                }
+            }
+            case "PATCH" -> taskListRepository.findById(id).ifPresent(taskList -> {
+                if (data.has(NAME)) taskList.setName(data.get(NAME));
+                if (data.has(SORT_BY)) taskList.setSortBy(data.get(SORT_BY));
+                taskListRepository.save(taskList);
+            });
+            case "DELETE" -> taskListRepository.findById(id).ifPresent(taskList -> {
+                if (taskList.getDeletedAt() == null) {
+                    taskList.setDeletedAt(ZonedDateTime.now());
+                    taskListRepository.save(taskList);
+                }
+            });
+        }
+    }
+
+    private void processMemberOperation(WriteCheckpointRequest.WriteOperation op) {
+        OperationData data = op.data();
+        UUID id = data.get(ID);
+
+        switch (op.op()) {
+            case "PATCH" -> memberRepository.findById(id).ifPresent(member -> {
+                if (data.has(NAME)) member.setName(data.get(NAME));
+                if (data.has(COLOR)) member.setColor(data.get(COLOR));
+                if (data.has(IMAGE)) member.setImage(data.get(IMAGE));
+                if (data.has(BIRTH_DATE)) {
+                    member.setBirthDate(data.get(BIRTH_DATE));
+                }
+                memberRepository.save(member);
+            });
+        }
+    }
+
+    private void processFamilyOperation(WriteCheckpointRequest.WriteOperation op) {
+        OperationData data = op.data();
+        UUID id = data.get(ID);
+
+        switch (op.op()) {
+            case "PATCH" -> familyRepository.findById(id).ifPresent(family -> {
+                if (data.has(NAME)) family.setName(data.get(NAME));
+                if (data.has(COLOR_CODE)) family.setColorCode(data.get(COLOR_CODE));
+                if (data.has(PLACE_OF_LIVING)) family.setPlaceOfLiving(data.get(PLACE_OF_LIVING));
+                if (data.has(RESIDENCE_TYPE)) family.setResidenceType(data.get(RESIDENCE_TYPE));
+                if (data.has(FAMILY_IMAGE)) family.setFamilyImage(data.get(FAMILY_IMAGE));
+                familyRepository.save(family);
+            });
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.familymind.powersync.sharding;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Command-line entry point for {@link FamilyShardMover}:
+ * {@code ./mvnw spring-boot:run -Dspring-boot.run.profiles=sharding,move-family
+ * -Dspring-boot.run.arguments="--powersync.sharding.move.family-id=<uuid> --powersync.sharding.move.target-shard=<n>"}.
+ * The application exits once the move is done.
+ */
+@Component
+@Profile("move-family")
+@RequiredArgsConstructor
+@Slf4j
+public class FamilyShardMoveRunner implements CommandLineRunner {
+
+    private final FamilyShardMover mover;
+    private final ApplicationContext context;
+
+    @Value("${powersync.sharding.move.family-id}")
+    private UUID familyId;
+
+    @Value("${powersync.sharding.move.target-shard}")
+    private int targetShard;
+
+    @Override
+    public void run(String... args) throws Exception {
+        int exitCode = 0;
+        try {
+            mover.move(familyId, targetShard);
+        } catch (Exception e) {
+            log.error("Moving family {} to shard {} failed", familyId, targetShard, e);
+            exitCode = 1;
+        }
+        int status = exitCode;
+        System.exit(SpringApplication.exit(context, () -> status));
+    }
+}
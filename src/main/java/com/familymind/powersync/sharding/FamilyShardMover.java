@@ -0,0 +1,201 @@
+package com.familymind.powersync.sharding;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Moves a family, with its members, task lists and tasks, from one shard to another.
+ *
+ * <ol>
+ *     <li>The family is fenced in the {@link ShardDirectory}; after every instance has reloaded the
+ *     directory, no uploads for it are accepted.</li>
+ *     <li>Its rows are streamed with {@code COPY} into the target shard in a single transaction, so a
+ *     failed move leaves nothing behind there. Tasks are copied parents first, and the audit references
+ *     between members are restored once all members exist.</li>
+ *     <li>The directory is pointed at the target shard, which lifts the fence.</li>
+ *     <li>The source copy stays, so clients still connected to the source shard's PowerSync service keep
+ *     their data until their token expires and they fetch a new one with the target's service URL.
+ *     After {@code powersync.sharding.source-retention-ms} the {@link MovedFamilyRetirer} tombstones
+ *     it, and the purge removes it in chunks.</li>
+ * </ol>
+ *
+ * A family's rows are expected to reference only members of the same family.
+ */
+@Component
+@ConditionalOnProperty(name = "powersync.sharding.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class FamilyShardMover {
+
+    private static final Set<String> MEMBER_REFERENCES = Set.of("creator_id", "updated_by");
+
+    private final ShardDataSources shardDataSources;
+    private final ShardDirectory shardDirectory;
+    private final Shards shards;
+
+    @Value("${powersync.sharding.directory-refresh-ms}")
+    private long directoryRefreshMs;
+
+    @Value("${powersync.sharding.source-retention-ms}")
+    private long sourceRetentionMs;
+
+    public void move(UUID familyId, int target) throws SQLException, IOException, InterruptedException {
+        if (target < 0 || target >= shards.count()) {
+            throw new IllegalArgumentException("No shard " + target + " (" + shards.count() + " configured)");
+        }
+        int source = shards.shardFor(familyId);
+        if (source == target) {
+            log.info("Family {} is already on shard {}", familyId, target);
+            return;
+        }
+
+        Optional<OffsetDateTime> pendingRetirement = shardDirectory.pendingRetirement(familyId);
+        if (pendingRetirement.isPresent()) {
+            throw new IllegalStateException("Family " + familyId + " was moved recently; move it again after "
+                    + pendingRetirement.get() + ", once its previous copy has been retired");
+        }
+
+        log.info("Moving family {} from shard {} to shard {}", familyId, source, target);
+        shardDirectory.place(familyId, source, true);
+        // Let every instance pick up the fence and finish uploads already in flight
+        Thread.sleep(2 * directoryRefreshMs);
+
+        try {
+            copy(familyId, source, target);
+        } catch (SQLException | IOException | RuntimeException e) {
+            shardDirectory.place(familyId, source, false);
+            throw e;
+        }
+        shardDirectory.place(familyId, target, false);
+        shardDirectory.scheduleRetirement(familyId, source, Duration.ofMillis(sourceRetentionMs));
+        log.info("Moved family {} to shard {}; the copy on shard {} is retired in {} ms",
+                familyId, target, source, sourceRetentionMs);
+    }
+
+    private void copy(UUID familyId, int source, int target) throws SQLException, IOException {
+        try (Connection from = shardDataSources.get(source).getConnection();
+             Connection to = shardDataSources.get(target).getConnection()) {
+            from.setReadOnly(true);
+            from.setAutoCommit(false);
+            from.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            to.setAutoCommit(false);
+            try {
+                CopyManager out = from.unwrap(PGConnection.class).getCopyAPI();
+                CopyManager in = to.unwrap(PGConnection.class).getCopyAPI();
+
+                // Leftovers of an earlier attempt that was committed but never switched over
+                try (PreparedStatement statement = to.prepareStatement("DELETE FROM family WHERE id = ?")) {
+                    statement.setObject(1, familyId);
+                    statement.executeUpdate();
+                }
+
+                String family = "'" + familyId + "'";
+                copyTable(out, in, "family", columns(from, "family", true), "family WHERE id = " + family);
+                copyTable(out, in, "member", columns(from, "member", true), "member WHERE family_id = " + family);
+                restoreMemberReferences(from, to, familyId);
+                copyTable(out, in, "task_list", columns(from, "task_list", false), "task_list WHERE family_id = " + family);
+                copyTable(out, in, "task", columns(from, "task", false), """
+                        task JOIN (
+                            WITH RECURSIVE tree AS (
+                                SELECT id, 0 AS depth FROM task
+                                WHERE family_id = %1$s AND sub_task_of_id IS NULL
+                                UNION ALL
+                                SELECT c.id, tree.depth + 1 FROM task c JOIN tree ON c.sub_task_of_id = tree.id
+                                WHERE c.family_id = %1$s
+                            )
+                            SELECT id, depth FROM tree
+                        ) ordered USING (id)
+                        ORDER BY ordered.depth""".formatted(family));
+
+                to.commit();
+            } catch (SQLException | IOException | RuntimeException e) {
+                to.rollback();
+                throw e;
+            } finally {
+                from.rollback();
+            }
+        }
+    }
+
+    private void copyTable(CopyManager out, CopyManager in, String table, List<String> columns, String from)
+            throws SQLException, IOException {
+        String columnList = String.join(", ", columns);
+        ByteArrayOutputStream rows = new ByteArrayOutputStream();
+        long copied = out.copyOut("COPY (SELECT " + qualify(table, columns) + " FROM " + from + ") TO STDOUT", rows);
+        in.copyIn("COPY " + table + " (" + columnList + ") FROM STDIN", new ByteArrayInputStream(rows.toByteArray()));
+        log.info("Copied {} {} rows", copied, table);
+    }
+
+    /**
+     * Family and member rows are copied without their creator/updater, as those point at members that
+     * may not have been copied yet. They are set once every member of the family exists on the target.
+     */
+    private void restoreMemberReferences(Connection from, Connection to, UUID familyId) throws SQLException {
+        try (PreparedStatement select = from.prepareStatement("""
+                     SELECT 'family' AS tbl, id, creator_id, updated_by FROM family WHERE id = ?
+                     UNION ALL
+                     SELECT 'member', id, creator_id, updated_by FROM member WHERE family_id = ?""");
+             PreparedStatement updateFamily = to.prepareStatement(
+                     "UPDATE family SET creator_id = ?, updated_by = ? WHERE id = ?");
+             PreparedStatement updateMember = to.prepareStatement(
+                     "UPDATE member SET creator_id = ?, updated_by = ? WHERE id = ?")) {
+            select.setObject(1, familyId);
+            select.setObject(2, familyId);
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    if (rs.getObject("creator_id") == null && rs.getObject("updated_by") == null) {
+                        continue;
+                    }
+                    PreparedStatement update = rs.getString("tbl").equals("family") ? updateFamily : updateMember;
+                    update.setObject(1, rs.getObject("creator_id"));
+                    update.setObject(2, rs.getObject("updated_by"));
+                    update.setObject(3, rs.getObject("id"));
+                    update.addBatch();
+                }
+            }
+            updateFamily.executeBatch();
+            updateMember.executeBatch();
+        }
+    }
+
+    private static List<String> columns(Connection connection, String table, boolean withoutMemberReferences)
+            throws SQLException {
+        List<String> columns = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement("""
+                SELECT column_name FROM information_schema.columns
+                WHERE table_schema = current_schema() AND table_name = ?
+                ORDER BY ordinal_position""")) {
+            statement.setString(1, table);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    String column = rs.getString(1);
+                    if (!withoutMemberReferences || !MEMBER_REFERENCES.contains(column)) {
+                        columns.add(column);
+                    }
+                }
+            }
+        }
+        return columns;
+    }
+
+    private static String qualify(String table, List<String> columns) {
+        return columns.stream().map(column -> table + "." + column).collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,78 @@
+package com.familymind.powersync.sharding;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Tombstones the copies that {@link FamilyShardMover} left on a family's old shard, once
+ * {@code powersync.sharding.source-retention-ms} has passed. The family and its task lists are
+ * tombstoned together, so the old shard's PowerSync service drops the whole family at once, and the
+ * purge then removes the rows in chunks.
+ *
+ * Every instance runs this; tombstoning twice changes nothing.
+ */
+@Component
+@ConditionalOnProperty(name = "powersync.sharding.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class MovedFamilyRetirer {
+
+    private static final List<String> TOMBSTONES = List.of(
+            "UPDATE family SET deleted_at = now() WHERE id = ? AND deleted_at IS NULL",
+            "UPDATE task_list SET deleted_at = now() WHERE family_id = ? AND deleted_at IS NULL");
+
+    private final ShardDataSources shardDataSources;
+    private final ShardDirectory shardDirectory;
+
+    @Scheduled(fixedDelayString = "${powersync.sharding.retire-interval-ms}")
+    void retireDueCopies() {
+        Map<UUID, Integer> due;
+        try {
+            due = shardDirectory.dueRetirements();
+        } catch (RuntimeException e) {
+            log.warn("Could not read moved families due for retirement, retrying on the next tick", e);
+            return;
+        }
+
+        due.forEach((familyId, shard) -> {
+            try {
+                tombstone(familyId, shard);
+                shardDirectory.retired(familyId);
+                log.info("Retired the copy of moved family {} on shard {}", familyId, shard);
+            } catch (SQLException | RuntimeException e) {
+                log.warn("Retiring the copy of family {} on shard {} failed, retrying on the next tick",
+                        familyId, shard, e);
+            }
+        });
+    }
+
+    private void tombstone(UUID familyId, int shard) throws SQLException {
+        try (Connection connection = shardDataSources.get(shard).getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                for (String sql : TOMBSTONES) {
+                    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                        statement.setObject(1, familyId);
+                        statement.executeUpdate();
+                    }
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+}
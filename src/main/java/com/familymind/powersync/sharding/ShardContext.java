@@ -0,0 +1,61 @@
+package com.familymind.powersync.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * The shard the current thread's database work is routed to.
+ *
+ * The routing DataSource resolves the shard when a connection is acquired, so the shard must be set
+ * before a transaction starts; switching it inside a transaction has no effect on that transaction.
+ * Without a shard set, work goes to {@link Shards#DEFAULT_SHARD}.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * @return the shard set on this thread, or {@code null} for the default shard
+     */
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Routes this thread to {@code shard} until the returned scope is closed, which restores the previous shard.
+     */
+    public static Scope enter(Integer shard) {
+        Integer previous = CURRENT.get();
+        set(shard);
+        return () -> set(previous);
+    }
+
+    public static <T> T call(Integer shard, Supplier<T> work) {
+        try (Scope ignored = enter(shard)) {
+            return work.get();
+        }
+    }
+
+    public static void run(Integer shard, Runnable work) {
+        call(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    private static void set(Integer shard) {
+        if (shard != null) {
+            CURRENT.set(shard);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,39 @@
+package com.familymind.powersync.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * The connection pools of the individual shards, indexed by shard number. Most code goes through the
+ * routing DataSource instead; this is for work that needs two shards at once, such as moving a family.
+ */
+public class ShardDataSources implements AutoCloseable {
+
+    private final List<HikariDataSource> pools;
+
+    ShardDataSources(List<HikariDataSource> pools) {
+        this.pools = List.copyOf(pools);
+    }
+
+    public DataSource get(int shard) {
+        if (shard < 0 || shard >= pools.size()) {
+            throw new IllegalArgumentException("No shard " + shard + " (" + pools.size() + " configured)");
+        }
+        return pools.get(shard);
+    }
+
+    public int count() {
+        return pools.size();
+    }
+
+    List<HikariDataSource> all() {
+        return pools;
+    }
+
+    @Override
+    public void close() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,110 @@
+package com.familymind.powersync.sharding;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Families placed somewhere other than their hash shard, kept in {@code family_shard} on the default shard.
+ *
+ * The table is small (only moved or pinned families), so every instance loads a full copy into memory
+ * at startup, failing the startup if it cannot, and reloads it every
+ * {@code powersync.sharding.directory-refresh-ms}. A family marked {@code moving}
+ * is fenced: uploads for it are rejected until the move has finished. After a move, the directory also
+ * remembers the shard holding the old copy until {@link MovedFamilyRetirer} has tombstoned it.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class ShardDirectory {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Map<UUID, Placement> placements = Map.of();
+
+    public Placement lookup(UUID familyId) {
+        return placements.get(familyId);
+    }
+
+    public void place(UUID familyId, int shard, boolean moving) {
+        ShardContext.run(Shards.DEFAULT_SHARD, () -> jdbcTemplate.update("""
+                INSERT INTO family_shard (family_id, shard, moving, updated_at) VALUES (?, ?, ?, now())
+                ON CONFLICT (family_id) DO UPDATE
+                SET shard = EXCLUDED.shard, moving = EXCLUDED.moving, updated_at = EXCLUDED.updated_at""",
+                familyId, shard, moving));
+
+        Map<UUID, Placement> updated = new HashMap<>(placements);
+        updated.put(familyId, new Placement(shard, moving));
+        placements = Map.copyOf(updated);
+    }
+
+    /**
+     * Schedules the family's copy on {@code shard} to be tombstoned once {@code retention} has passed.
+     */
+    public void scheduleRetirement(UUID familyId, int shard, Duration retention) {
+        ShardContext.run(Shards.DEFAULT_SHARD, () -> jdbcTemplate.update("""
+                UPDATE family_shard
+                SET retire_shard = ?, retire_after = now() + ? * INTERVAL '1 millisecond'
+                WHERE family_id = ?""", shard, retention.toMillis(), familyId));
+    }
+
+    /**
+     * @return when the family's old copy will be retired, or empty if none is waiting
+     */
+    public Optional<OffsetDateTime> pendingRetirement(UUID familyId) {
+        return ShardContext.call(Shards.DEFAULT_SHARD, () -> jdbcTemplate.queryForList(
+                "SELECT retire_after FROM family_shard WHERE family_id = ? AND retire_shard IS NOT NULL",
+                OffsetDateTime.class, familyId).stream().findFirst());
+    }
+
+    /**
+     * @return the families whose old copy is due to be retired, with the shard holding it
+     */
+    public Map<UUID, Integer> dueRetirements() {
+        Map<UUID, Integer> due = new HashMap<>();
+        ShardContext.run(Shards.DEFAULT_SHARD, () -> jdbcTemplate.query(
+                "SELECT family_id, retire_shard FROM family_shard WHERE retire_shard IS NOT NULL AND retire_after <= now()",
+                rs -> {
+                    due.put(rs.getObject("family_id", UUID.class), rs.getInt("retire_shard"));
+                }));
+        return due;
+    }
+
+    public void retired(UUID familyId) {
+        ShardContext.run(Shards.DEFAULT_SHARD, () -> jdbcTemplate.update(
+                "UPDATE family_shard SET retire_shard = NULL, retire_after = NULL WHERE family_id = ?", familyId));
+    }
+
+    /**
+     * Loads every placement. Called once when the bean is created, so the application does not start
+     * routing families before it knows which of them were moved.
+     */
+    public void load() {
+        Map<UUID, Placement> loaded = new HashMap<>();
+        ShardContext.run(Shards.DEFAULT_SHARD, () -> jdbcTemplate.query(
+                "SELECT family_id, shard, moving FROM family_shard",
+                rs -> {
+                    loaded.put(rs.getObject("family_id", UUID.class),
+                            new Placement(rs.getInt("shard"), rs.getBoolean("moving")));
+                }));
+        placements = Map.copyOf(loaded);
+    }
+
+    @Scheduled(fixedDelayString = "${powersync.sharding.directory-refresh-ms}")
+    public void refresh() {
+        try {
+            load();
+        } catch (RuntimeException e) {
+            log.warn("Could not reload the shard directory, keeping {} cached placements", placements.size(), e);
+        }
+    }
+
+    public record Placement(int shard, boolean moving) {}
+}
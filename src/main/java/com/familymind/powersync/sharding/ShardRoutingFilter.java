@@ -0,0 +1,65 @@
+package com.familymind.powersync.sharding;
+
+import com.familymind.powersync.security.BearerTokens;
+import com.familymind.powersync.web.ErrorResponses;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Routes PowerSync API requests to the shard of the caller's family ({@code family_id} claim of the
+ * bearer token). Requests that cannot be attributed to a family are rejected, since there is no
+ * single database to send them to. Every mutating request (anything but {@code GET}, {@code HEAD} and
+ * {@code OPTIONS}) for a family that is being moved gets {@code 503} with {@code Retry-After}, so no
+ * write lands on the source shard after the copy started; PowerSync clients retry once the move has
+ * finished.
+ */
+@Component
+@Order(3)
+@ConditionalOnProperty(name = "powersync.sharding.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ShardRoutingFilter extends OncePerRequestFilter {
+
+    private static final String POWERSYNC_PATH = "/api/powersync/";
+    private static final Set<String> READ_ONLY_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+    private static final int MOVING_RETRY_AFTER_SECONDS = 5;
+
+    private final BearerTokens bearerTokens;
+    private final Shards shards;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(POWERSYNC_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        UUID familyId = bearerTokens.familyId(request);
+        if (familyId == null) {
+            ErrorResponses.write(response, HttpStatus.UNAUTHORIZED, "A bearer token with a family_id claim is required");
+            return;
+        }
+        if (!READ_ONLY_METHODS.contains(request.getMethod()) && shards.isMoving(familyId)) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, Integer.toString(MOVING_RETRY_AFTER_SECONDS));
+            ErrorResponses.write(response, HttpStatus.SERVICE_UNAVAILABLE, "Family is being moved between shards");
+            return;
+        }
+
+        try (ShardContext.Scope ignored = ShardContext.enter(shards.shardFor(familyId))) {
+            filterChain.doFilter(request, response);
+        }
+    }
+}
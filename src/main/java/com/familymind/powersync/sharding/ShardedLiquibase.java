@@ -0,0 +1,31 @@
+package com.familymind.powersync.sharding;
+
+import liquibase.exception.LiquibaseException;
+import liquibase.integration.spring.SpringLiquibase;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Runs the changelog against every shard in turn, so each shard gets the schema, the PowerSync role
+ * and its own {@code powersync} publication. Being a {@link SpringLiquibase}, it replaces Boot's
+ * Liquibase bean and still runs before the JPA EntityManagerFactory validates the schema.
+ */
+@RequiredArgsConstructor
+@Slf4j
+class ShardedLiquibase extends SpringLiquibase {
+
+    private final List<? extends DataSource> shards;
+
+    @Override
+    public void afterPropertiesSet() throws LiquibaseException {
+        for (int shard = 0; shard < shards.size(); shard++) {
+            log.info("Migrating shard {}", shard);
+            setDataSource(shards.get(shard));
+            super.afterPropertiesSet();
+        }
+        setDataSource(shards.getFirst());
+    }
+}
@@ -0,0 +1,113 @@
+package com.familymind.powersync.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Family-hash sharding ({@code powersync.sharding.enabled=true}, enabled by the {@code sharding} profile).
+ *
+ * Each URL in {@code powersync.sharding.urls} is a shard; shard 0 also holds the {@link ShardDirectory}.
+ * {@code powersync.sharding.powersync-urls} lists the PowerSync service of each shard, in the same order.
+ * The primary DataSource routes by {@link ShardContext}, so repositories, JdbcTemplate and transactions
+ * work unchanged once the shard is set. Without sharding, a single-shard {@link Shards} is registered.
+ */
+@Configuration
+public class ShardingConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "powersync.sharding.enabled", havingValue = "false", matchIfMissing = true)
+    public Shards singleShard(@Value("${powersync.url}") String powerSyncUrl) {
+        return Shards.single(powerSyncUrl);
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "powersync.sharding.enabled", havingValue = "true")
+    @Slf4j
+    static class Sharded {
+
+        Sharded(@Value("${powersync.journal.enabled}") boolean journalEnabled,
+                @Value("${powersync.sharding.source-retention-ms}") long sourceRetentionMs,
+                @Value("${jwt.expiration}") long tokenLifetimeMs) {
+            if (journalEnabled) {
+                // The journal applier runs outside any request and does not route records to shards
+                throw new IllegalStateException("powersync.journal.enabled cannot be combined with sharding");
+            }
+            if (sourceRetentionMs < tokenLifetimeMs) {
+                // Clients only learn a moved family's new PowerSync service when they fetch a new token
+                throw new IllegalStateException("powersync.sharding.source-retention-ms (" + sourceRetentionMs
+                        + ") must be at least jwt.expiration (" + tokenLifetimeMs + ")");
+            }
+        }
+
+        @Bean
+        public ShardDataSources shardDataSources(DataSourceProperties properties,
+                                                 @Value("${powersync.sharding.urls}") String[] urls,
+                                                 @Value("${powersync.sharding.pool-size-per-shard}") int poolSize) {
+            List<HikariDataSource> pools = new ArrayList<>();
+            for (int shard = 0; shard < urls.length; shard++) {
+                HikariDataSource pool = properties.initializeDataSourceBuilder()
+                        .type(HikariDataSource.class)
+                        .url(urls[shard].trim())
+                        .build();
+                pool.setPoolName("shard-" + shard);
+                pool.setMaximumPoolSize(poolSize);
+                pools.add(pool);
+            }
+            log.info("Sharding enabled across {} databases", pools.size());
+            return new ShardDataSources(pools);
+        }
+
+        @Bean
+        @Primary
+        public DataSource dataSource(ShardDataSources shardDataSources) {
+            Map<Object, Object> targets = new HashMap<>();
+            for (int shard = 0; shard < shardDataSources.count(); shard++) {
+                targets.put(shard, shardDataSources.get(shard));
+            }
+            ShardRoutingDataSource routing = new ShardRoutingDataSource();
+            routing.setTargetDataSources(targets);
+            routing.setDefaultTargetDataSource(shardDataSources.get(Shards.DEFAULT_SHARD));
+            routing.setLenientFallback(false);
+            return routing;
+        }
+
+        @Bean
+        public ShardedLiquibase liquibase(ShardDataSources shardDataSources,
+                                          @Value("${spring.liquibase.change-log}") String changeLog) {
+            ShardedLiquibase liquibase = new ShardedLiquibase(shardDataSources.all());
+            liquibase.setChangeLog(changeLog);
+            return liquibase;
+        }
+
+        @Bean
+        public ShardDirectory shardDirectory(JdbcTemplate jdbcTemplate) {
+            ShardDirectory shardDirectory = new ShardDirectory(jdbcTemplate);
+            shardDirectory.load();
+            return shardDirectory;
+        }
+
+        @Bean
+        public Shards shards(ShardDataSources shardDataSources, ShardDirectory shardDirectory,
+                             @Value("${powersync.sharding.powersync-urls}") String[] powerSyncUrls) {
+            if (powerSyncUrls.length != shardDataSources.count()) {
+                throw new IllegalStateException("powersync.sharding.powersync-urls has " + powerSyncUrls.length
+                        + " entries but there are " + shardDataSources.count() + " shards");
+            }
+            return new Shards(shardDirectory, Arrays.stream(powerSyncUrls).map(String::trim).toList());
+        }
+    }
+}
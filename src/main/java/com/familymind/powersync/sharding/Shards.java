@@ -0,0 +1,91 @@
+package com.familymind.powersync.sharding;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Where each family's data lives, and which PowerSync service syncs it.
+ *
+ * A family is placed by hashing its id over the configured shards, unless the {@link ShardDirectory}
+ * pins it elsewhere (moved or seeded families). Each shard has its own PowerSync service, whose URL is
+ * handed to clients together with their token. Without sharding there is a single shard and every
+ * method degrades to a no-op, so callers do not need to know whether sharding is enabled.
+ */
+public class Shards {
+
+    public static final int DEFAULT_SHARD = 0;
+
+    private final int count;
+    private final ShardDirectory directory;
+    private final List<String> powerSyncUrls;
+
+    Shards(ShardDirectory directory, List<String> powerSyncUrls) {
+        this.count = powerSyncUrls.size();
+        this.directory = directory;
+        this.powerSyncUrls = List.copyOf(powerSyncUrls);
+    }
+
+    static Shards single(String powerSyncUrl) {
+        return new Shards(null, List.of(powerSyncUrl));
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public List<Integer> ids() {
+        return IntStream.range(0, count).boxed().toList();
+    }
+
+    public int shardFor(UUID familyId) {
+        ShardDirectory.Placement placement = directory != null ? directory.lookup(familyId) : null;
+        return placement != null ? placement.shard() : hashShard(familyId);
+    }
+
+    /**
+     * @return the URL of the PowerSync service that syncs the family, or of the default shard's service
+     *         for a {@code null} family
+     */
+    public String powerSyncUrl(UUID familyId) {
+        return powerSyncUrls.get(familyId != null ? shardFor(familyId) : DEFAULT_SHARD);
+    }
+
+    int hashShard(UUID familyId) {
+        // UUID.hashCode() is specified (xor of the two halves), so placement is stable across JVMs
+        return Math.floorMod(familyId.hashCode(), count);
+    }
+
+    /**
+     * @return whether the family is being moved between shards and must not be written to
+     */
+    public boolean isMoving(UUID familyId) {
+        ShardDirectory.Placement placement = directory != null ? directory.lookup(familyId) : null;
+        return placement != null && placement.moving();
+    }
+
+    /**
+     * Pins a family to a shard, overriding its hash placement.
+     */
+    public void assign(UUID familyId, int shard) {
+        if (directory != null) {
+            directory.place(familyId, shard, false);
+        }
+    }
+
+    /**
+     * Runs {@code lookup} against each shard in turn and returns the first result found, for lookups
+     * that are not keyed by family (such as a member by email).
+     */
+    public <T> Optional<T> findFirst(Supplier<Optional<T>> lookup) {
+        for (int shard = 0; shard < count; shard++) {
+            Optional<T> result = ShardContext.call(shard, lookup);
+            if (result.isPresent()) {
+                return result;
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,77 @@
+package com.familymind.powersync.util;
+
+/**
+ * Fractional ordering keys for {@code task.rank}.
+ *
+ * A rank is a string of lowercase hex digits read as a fraction ({@code "8"} is 0.5, {@code "08"} is
+ * 0.03125), so plain byte-wise comparison ({@code COLLATE "C"}) orders them. A key never ends in
+ * {@code '0'}, which guarantees there is always room for another key between any two, so moving a task
+ * only rewrites that task's rank. Keys grow by about one digit per halving, and a list whose keys got
+ * too long is rewritten by the server-side rebalance.
+ */
+public final class RankKeys {
+
+    private static final String DIGITS = "0123456789abcdef";
+    private static final int BASE = DIGITS.length();
+
+    /**
+     * Longest rank accepted from clients. The column allows 255; a rebalance normally kicks in well before.
+     */
+    public static final int MAX_LENGTH = 255;
+
+    private RankKeys() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * Returns a key strictly between {@code lower} and {@code upper}. Either bound may be {@code null}
+     * for the start or end of the list.
+     *
+     * @throws IllegalArgumentException if a bound is not a valid rank or {@code lower} is not below {@code upper}
+     */
+    public static String between(String lower, String upper) {
+        if (lower != null) requireValid(lower);
+        if (upper != null) requireValid(upper);
+        if (lower != null && upper != null && lower.compareTo(upper) >= 0) {
+            throw new IllegalArgumentException("Rank " + lower + " is not below " + upper);
+        }
+
+        StringBuilder key = new StringBuilder();
+        boolean bounded = upper != null;
+        for (int i = 0; ; i++) {
+            int low = lower != null && i < lower.length() ? DIGITS.indexOf(lower.charAt(i)) : 0;
+            int high = bounded ? (i < upper.length() ? DIGITS.indexOf(upper.charAt(i)) : 0) : BASE;
+            if (high - low > 1) {
+                return key.append(DIGITS.charAt((low + high) / 2)).toString();
+            }
+            key.append(DIGITS.charAt(low));
+            if (high > low) {
+                // Taking the lower digit puts the key below upper whatever follows
+                bounded = false;
+            }
+        }
+    }
+
+    /**
+     * Evenly spaced key for the {@code index}-th task of a list (1-based), as assigned by the
+     * Liquibase backfill and the rebalance: eight hex digits followed by {@code '8'}.
+     */
+    public static String initial(long index) {
+        return String.format("%08x8", index);
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code rank} is not a valid key
+     */
+    public static String requireValid(String rank) {
+        if (rank == null || rank.isEmpty() || rank.length() > MAX_LENGTH || rank.charAt(rank.length() - 1) == '0') {
+            throw new IllegalArgumentException("Invalid rank: " + rank);
+        }
+        for (int i = 0; i < rank.length(); i++) {
+            if (DIGITS.indexOf(rank.charAt(i)) < 0) {
+                throw new IllegalArgumentException("Invalid rank: " + rank);
+            }
+        }
+        return rank;
+    }
+}
@@ -17,7 +17,13 @@ public class UuidV7Generator implements BeforeExecutionGenerator {
 
     @Override
     public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
-        return UuidGenerator.generateUuidV7();
+        // Rows created by clients arrive with their id already assigned, and must keep it
+        return currentValue != null ? currentValue : UuidGenerator.generateUuidV7();
+    }
+
+    @Override
+    public boolean allowAssignedIdentifiers() {
+        return true;
     }
 
     @Override
@@ -0,0 +1,56 @@
+package com.familymind.powersync.web;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Fails the read with an {@link UploadTooLargeException} once more than {@code limit} bytes have been read.
+ */
+class BoundedInputStream extends InputStream {
+
+    private final InputStream delegate;
+    private final long limit;
+    private long count;
+
+    BoundedInputStream(InputStream delegate, long limit) {
+        this.delegate = delegate;
+        this.limit = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (count > limit) {
+            throw new UploadTooLargeException(limit);
+        }
+        int b = delegate.read();
+        if (b != -1) {
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (count > limit) {
+            throw new UploadTooLargeException(limit);
+        }
+        // Never read more than one byte past the limit, so a bomb cannot expand far
+        int read = delegate.read(buffer, offset, (int) Math.min(length, limit - count + 1));
+        if (read > 0) {
+            count(read);
+        }
+        return read;
+    }
+
+    private void count(int read) throws UploadTooLargeException {
+        count += read;
+        if (count > limit) {
+            throw new UploadTooLargeException(limit);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
@@ -0,0 +1,27 @@
+package com.familymind.powersync.web;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+
+/**
+ * Writes the API's {@code {"success": false, "error": ...}} body from servlet filters, which run
+ * outside of the controllers' exception handlers.
+ */
+public final class ErrorResponses {
+
+    private ErrorResponses() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * @param message a fixed message; it is written as is, without JSON escaping
+     */
+    public static void write(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"success\":false,\"error\":\"" + message + "\"}");
+    }
+}
@@ -0,0 +1,235 @@
+package com.familymind.powersync.web;
+
+import com.github.luben.zstd.ZstdInputStream;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Accepts {@code Content-Encoding: gzip} and {@code zstd} request bodies on the write-checkpoint endpoint.
+ *
+ * The body is decompressed as it is read, so the JSON parser consumes the stream directly and the
+ * full upload is never buffered; only a non-blocking read ({@link ReadListener}) collects the compressed
+ * body first. The decompressed size is capped to guard against decompression bombs; exceeding it fails
+ * the read with an {@link UploadTooLargeException}.
+ */
+@Component
+@Order(1)
+public class RequestDecompressionFilter extends OncePerRequestFilter {
+
+    private static final String WRITE_CHECKPOINT_PATH = "/api/powersync/write-checkpoint";
+    private static final int BUFFER_SIZE = 8192;
+
+    @Value("${powersync.upload.max-decompressed-bytes}")
+    private long maxDecompressedBytes;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !WRITE_CHECKPOINT_PATH.equals(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String contentEncoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        if (contentEncoding == null || contentEncoding.isBlank() || contentEncoding.trim().equalsIgnoreCase("identity")) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        List<String> encodings = Arrays.stream(contentEncoding.split(","))
+                .map(encoding -> encoding.trim().toLowerCase(Locale.ROOT))
+                .filter(encoding -> !encoding.isEmpty() && !encoding.equals("identity"))
+                .toList();
+        for (String encoding : encodings) {
+            if (!encoding.equals("gzip") && !encoding.equals("x-gzip") && !encoding.equals("zstd")) {
+                response.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE, "Unsupported Content-Encoding: " + encoding);
+                return;
+            }
+        }
+
+        filterChain.doFilter(new DecompressingRequest(request, encodings), response);
+    }
+
+    private InputStream decode(InputStream body, List<String> encodings) throws IOException {
+        InputStream stream = body;
+        // Encodings are listed in the order they were applied, so undo them from last to first
+        for (int i = encodings.size() - 1; i >= 0; i--) {
+            stream = encodings.get(i).equals("zstd")
+                    ? new ZstdInputStream(stream)
+                    : new GZIPInputStream(stream, BUFFER_SIZE);
+        }
+        return new BoundedInputStream(stream, maxDecompressedBytes);
+    }
+
+    /**
+     * Presents the decompressed body and hides the headers that describe the compressed one.
+     */
+    private class DecompressingRequest extends HttpServletRequestWrapper {
+
+        private final List<String> encodings;
+        private ServletInputStream inputStream;
+
+        DecompressingRequest(HttpServletRequest request, List<String> encodings) {
+            super(request);
+            this.encodings = encodings;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                inputStream = new DecodedServletInputStream(super.getInputStream(), encodings);
+            }
+            return inputStream;
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return isHidden(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return isHidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            List<String> names = new ArrayList<>();
+            for (String name : Collections.list(super.getHeaderNames())) {
+                if (!isHidden(name)) {
+                    names.add(name);
+                }
+            }
+            return Collections.enumeration(names);
+        }
+
+        private boolean isHidden(String name) {
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+    }
+
+    /**
+     * Decompresses the body as it is read. Decompressors pull from a blocking stream, so when a
+     * {@link ReadListener} is set the compressed body is first collected without blocking (at most
+     * {@code max-decompressed-bytes} of it) and then decompressed from memory, under the same limit.
+     */
+    private class DecodedServletInputStream extends ServletInputStream {
+
+        private final ServletInputStream body;
+        private final List<String> encodings;
+        private InputStream decoded;
+        private volatile boolean ready = true;
+        private boolean finished;
+
+        DecodedServletInputStream(ServletInputStream body, List<String> encodings) {
+            this.body = body;
+            this.encodings = encodings;
+        }
+
+        private InputStream decoded() throws IOException {
+            if (decoded == null) {
+                decoded = decode(body, encodings);
+            }
+            return decoded;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = decoded().read();
+            finished = b == -1;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = decoded().read(buffer, offset, length);
+            finished = read == -1;
+            return read;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return ready;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            ready = false;
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            body.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    byte[] buffer = new byte[BUFFER_SIZE];
+                    while (body.isReady()) {
+                        int read = body.read(buffer);
+                        if (read == -1) {
+                            return;
+                        }
+                        compressed.write(buffer, 0, read);
+                        if (compressed.size() > maxDecompressedBytes) {
+                            throw new UploadTooLargeException(maxDecompressedBytes);
+                        }
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    try {
+                        decoded = decode(new ByteArrayInputStream(compressed.toByteArray()), encodings);
+                        ready = true;
+                        readListener.onDataAvailable();
+                        readListener.onAllDataRead();
+                    } catch (Throwable t) {
+                        readListener.onError(t);
+                    }
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    readListener.onError(t);
+                }
+            });
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (decoded != null) {
+                decoded.close();
+            } else {
+                body.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.familymind.powersync.web;
+
+import com.familymind.powersync.security.BearerTokens;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Admission control for the write-checkpoint and task list rebalance endpoints, so a single client stuck
+ * in a reconnect loop cannot take every database connection.
+ *
+ * Three limits apply, all without locks:
+ * <ul>
+ *     <li>a token bucket per family ({@code family_id} claim of the bearer token),</li>
+ *     <li>a cap on concurrent uploads per member ({@code member_id} claim),</li>
+ *     <li>a global cap on uploads in flight, sized to the connection pool.</li>
+ * </ul>
+ * Requests over a limit get {@code 429 Too Many Requests} with {@code Retry-After}.
+ * Requests without a valid token are only subject to the global limit.
+ */
+@Component
+@Order(0)
+@ConditionalOnProperty(name = "powersync.admission.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class UploadAdmissionFilter extends OncePerRequestFilter {
+
+    private static final String WRITE_CHECKPOINT_PATH = "/api/powersync/write-checkpoint";
+    private static final Pattern REBALANCE_PATH = Pattern.compile("/api/powersync/task-lists/[^/]+/rebalance");
+
+    private final BearerTokens bearerTokens;
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<String, TokenBucket> familyBuckets = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AtomicInteger> memberUploads = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    @Value("${powersync.admission.family-rate-per-second}")
+    private double familyRatePerSecond;
+
+    @Value("${powersync.admission.family-burst}")
+    private int familyBurst;
+
+    @Value("${powersync.admission.member-max-concurrent}")
+    private int memberMaxConcurrent;
+
+    @Value("${powersync.admission.max-in-flight}")
+    private int maxInFlight;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !WRITE_CHECKPOINT_PATH.equals(path) && !REBALANCE_PATH.matcher(path).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Claims claims = bearerTokens.claims(request);
+        String familyId = claims != null ? claims.get("family_id", String.class) : null;
+        String memberId = claims != null ? claims.get("member_id", String.class) : null;
+
+        if (familyId != null) {
+            long waitNanos = acquireFamilyToken(familyId);
+            if (waitNanos > 0) {
+                reject(response, "family_rate", "Too many uploads for this family", waitNanos);
+                return;
+            }
+        }
+
+        AtomicInteger memberCount = null;
+        if (memberId != null) {
+            memberCount = memberUploads.computeIfAbsent(memberId, id -> new AtomicInteger());
+            if (memberCount.incrementAndGet() > memberMaxConcurrent) {
+                memberCount.decrementAndGet();
+                reject(response, "member_concurrency", "Too many concurrent uploads for this member", 0);
+                return;
+            }
+        }
+
+        try {
+            if (inFlight.incrementAndGet() > maxInFlight) {
+                inFlight.decrementAndGet();
+                reject(response, "global_in_flight", "Server is busy", 0);
+                return;
+            }
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        } finally {
+            if (memberCount != null) {
+                memberCount.decrementAndGet();
+            }
+        }
+    }
+
+    private long acquireFamilyToken(String familyId) {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / familyRatePerSecond);
+        TokenBucket bucket = familyBuckets.get(familyId);
+        if (bucket == null) {
+            bucket = familyBuckets.computeIfAbsent(familyId, id -> new TokenBucket());
+        }
+        return bucket.tryAcquire(System.nanoTime(), intervalNanos, intervalNanos * (familyBurst - 1));
+    }
+
+    private void reject(HttpServletResponse response, String reason, String message, long waitNanos) throws IOException {
+        meterRegistry.counter("powersync.admission.rejected", "reason", reason).increment();
+
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        ErrorResponses.write(response, HttpStatus.TOO_MANY_REQUESTS, message);
+    }
+
+    /**
+     * Drops the state of families and members that are idle, so the maps only hold active clients.
+     * A member counter removed while a new upload is picking it up only loosens that member's cap
+     * for the one upload.
+     */
+    @Scheduled(fixedDelayString = "${powersync.admission.cleanup-interval-ms}")
+    void evictIdle() {
+        long now = System.nanoTime();
+        familyBuckets.values().removeIf(bucket -> bucket.isFull(now));
+        memberUploads.values().removeIf(count -> count.get() == 0);
+    }
+}
@@ -0,0 +1,13 @@
+package com.familymind.powersync.web;
+
+import java.io.IOException;
+
+/**
+ * Thrown while reading an upload body whose decompressed size exceeds the configured limit.
+ */
+public class UploadTooLargeException extends IOException {
+
+    public UploadTooLargeException(long limit) {
+        super("Upload exceeds " + limit + " bytes after decompression");
+    }
+}
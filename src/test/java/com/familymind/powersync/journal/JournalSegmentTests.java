@@ -0,0 +1,75 @@
+package com.familymind.powersync.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JournalSegmentTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackWrittenRecords() {
+        JournalSegment segment = JournalSegment.create(directory, 1, 1024);
+        int second = segment.write(0, 1, bytes("first"));
+        int end = segment.write(second, 2, bytes("second"));
+
+        JournalSegment.Entry first = segment.read(0);
+        assertThat(first.sequence()).isEqualTo(1);
+        assertThat(first.payload()).isEqualTo(bytes("first"));
+        assertThat(first.nextPosition()).isEqualTo(second);
+        assertThat(segment.read(second).payload()).isEqualTo(bytes("second"));
+        assertThat(segment.read(end)).as("nothing written yet").isNull();
+    }
+
+    @Test
+    void reopenedSegmentKeepsRecordsAndBaseSequence() {
+        JournalSegment segment = JournalSegment.create(directory, 42, 1024);
+        segment.write(0, 42, bytes("kept"));
+        segment.force();
+
+        JournalSegment reopened = JournalSegment.open(segment.path());
+        assertThat(reopened.baseSequence()).isEqualTo(42);
+        assertThat(reopened.read(0).payload()).isEqualTo(bytes("kept"));
+    }
+
+    @Test
+    void tornRecordIsNotRead() throws IOException {
+        JournalSegment segment = JournalSegment.create(directory, 1, 1024);
+        int next = segment.write(0, 1, bytes("complete"));
+        segment.write(next, 2, bytes("torn"));
+        segment.force();
+
+        // A crash in the middle of the second record's payload
+        try (RandomAccessFile file = new RandomAccessFile(segment.path().toFile(), "rw")) {
+            file.seek(next + JournalSegment.RECORD_HEADER_SIZE);
+            file.write('X');
+        }
+
+        JournalSegment reopened = JournalSegment.open(segment.path());
+        assertThat(reopened.read(0).payload()).isEqualTo(bytes("complete"));
+        assertThat(reopened.read(next)).isNull();
+    }
+
+    @Test
+    void closedSegmentEndsAtCloseMarker() {
+        JournalSegment segment = JournalSegment.create(directory, 1, 64);
+        int next = segment.write(0, 1, bytes("only"));
+        assertThat(segment.fits(next, 64)).isFalse();
+        segment.close(next);
+
+        assertThat(segment.read(next)).isSameAs(JournalSegment.Entry.END);
+        assertThat(segment.read(segment.capacity() - 1)).isSameAs(JournalSegment.Entry.END);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
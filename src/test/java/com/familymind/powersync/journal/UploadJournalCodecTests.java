@@ -0,0 +1,68 @@
+package com.familymind.powersync.journal;
+
+import com.familymind.powersync.dto.OperationData;
+import com.familymind.powersync.dto.WriteCheckpointRequest;
+import com.familymind.powersync.dto.WriteCheckpointRequest.WriteOperation;
+import org.junit.jupiter.api.Test;
+import tools.jackson.dataformat.cbor.CBORMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UploadJournalCodecTests {
+
+    private static final UUID TASK_ID = UUID.fromString("0190a0a0-0000-7000-8000-000000000001");
+
+    private final CBORMapper cborMapper = new CBORMapper();
+    private final UploadJournalCodec codec = new UploadJournalCodec(cborMapper);
+
+    @Test
+    void roundTripsWithFamily() {
+        UUID familyId = UUID.randomUUID();
+        byte[] payload = codec.encode(familyId, request());
+
+        assertThat(payload[0]).isEqualTo(UploadJournalCodec.FORMAT_FAMILY_CBOR);
+        assertThat(codec.familyOf(payload)).isEqualTo(familyId);
+        assertThat(taskId(codec.decode(payload))).isEqualTo(TASK_ID);
+    }
+
+    @Test
+    void roundTripsWithoutFamily() {
+        byte[] payload = codec.encode(null, request());
+
+        assertThat(payload[0]).isEqualTo(UploadJournalCodec.FORMAT_CBOR);
+        assertThat(codec.familyOf(payload)).isNull();
+        assertThat(taskId(codec.decode(payload))).isEqualTo(TASK_ID);
+    }
+
+    @Test
+    void rejectsPayloadsWithoutFormatByte() {
+        byte[] json = """
+                {"operations":[{"op":"PATCH","table":"task","data":{"id":"%s","title":"Old"}}]}"""
+                .formatted(TASK_ID).getBytes(StandardCharsets.UTF_8);
+        byte[] bareCbor = cborMapper.writeValueAsBytes(request());
+
+        assertThatThrownBy(() -> codec.decode(json)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> codec.decode(bareCbor)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> codec.decode(new byte[0])).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsUnknownFormat() {
+        assertThatThrownBy(() -> codec.decode(new byte[]{0x7f, 1, 2})).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static WriteCheckpointRequest request() {
+        return new WriteCheckpointRequest(List.of(new WriteOperation("PATCH", "task",
+                OperationData.of(Map.of("id", TASK_ID.toString(), "title", "New")))));
+    }
+
+    private static UUID taskId(WriteCheckpointRequest request) {
+        return request.operations().getFirst().data().get(OperationData.ID);
+    }
+}
@@ -0,0 +1,218 @@
+package com.familymind.powersync.journal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UploadJournalTests {
+
+    private static final int PAYLOAD_SIZE = 40;
+    // Room for exactly two records per segment
+    private static final int SMALL_SEGMENT = 2 * (JournalSegment.RECORD_HEADER_SIZE + PAYLOAD_SIZE) + 8;
+
+    @TempDir
+    Path directory;
+
+    private final List<UploadJournal> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeJournals() throws InterruptedException {
+        for (UploadJournal journal : opened) {
+            journal.close();
+        }
+    }
+
+    @Test
+    void acknowledgesAppendsOnceDurable() throws IOException {
+        UploadJournal journal = open(1024 * 1024, 1000, 16);
+
+        assertThat(journal.append(payload(1)).join()).isEqualTo(1);
+        assertThat(journal.append(payload(2)).join()).isEqualTo(2);
+        assertThat(journal.durableSequence()).isEqualTo(2);
+        assertThat(sequences(journal)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void replaysFromCheckpointAfterRestart() throws Exception {
+        UploadJournal journal = open(1024 * 1024, 1000, 16);
+        for (int i = 1; i <= 3; i++) {
+            journal.append(payload(i)).join();
+        }
+        journal.markApplied(1);
+        shutDown(journal);
+
+        UploadJournal reopened = open(1024 * 1024, 1000, 16);
+        assertThat(reopened.appliedSequence()).isEqualTo(1);
+        assertThat(reopened.durableSequence()).isEqualTo(3);
+        assertThat(sequences(reopened)).containsExactly(1L, 2L, 3L);
+        assertThat(reopened.append(payload(4)).join()).isEqualTo(4);
+    }
+
+    @Test
+    void ignoresTornRecordAtTheEnd() throws Exception {
+        UploadJournal journal = open(1024 * 1024, 1000, 16);
+        journal.append(payload(1)).join();
+        journal.append(payload(2)).join();
+        shutDown(journal);
+
+        // A third record whose header made it to disk but whose payload did not
+        Path segment = segmentFiles().getFirst();
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(2L * (JournalSegment.RECORD_HEADER_SIZE + PAYLOAD_SIZE));
+            file.writeInt(PAYLOAD_SIZE);
+            file.writeInt(12345);
+            file.writeLong(3);
+        }
+
+        UploadJournal reopened = open(1024 * 1024, 1000, 16);
+        assertThat(reopened.durableSequence()).isEqualTo(2);
+        assertThat(reopened.append(payload(3)).join()).isEqualTo(3);
+        assertThat(sequences(reopened)).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void rollsOverToNewSegments() throws Exception {
+        UploadJournal journal = open(SMALL_SEGMENT, 1000, 16);
+        for (int i = 1; i <= 5; i++) {
+            journal.append(payload(i)).join();
+        }
+        assertThat(segmentFiles()).hasSize(3);
+        assertThat(sequences(journal)).containsExactly(1L, 2L, 3L, 4L, 5L);
+        shutDown(journal);
+
+        UploadJournal reopened = open(SMALL_SEGMENT, 1000, 16);
+        assertThat(sequences(reopened)).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(reopened.append(payload(6)).join()).isEqualTo(6);
+    }
+
+    @Test
+    void sealsRolledSegmentsThatLostTheirEndMarker() throws Exception {
+        // Two records per segment, with room after them for a record header but not a third record
+        int endOfTwoRecords = 2 * (JournalSegment.RECORD_HEADER_SIZE + PAYLOAD_SIZE);
+        int segmentSize = endOfTwoRecords + PAYLOAD_SIZE;
+        UploadJournal journal = open(segmentSize, 1000, 16);
+        for (int i = 1; i <= 3; i++) {
+            journal.append(payload(i)).join();
+        }
+        shutDown(journal);
+
+        // The first segment was rolled after two records, but its end marker never reached the disk
+        try (RandomAccessFile file = new RandomAccessFile(segmentFiles().getFirst().toFile(), "rw")) {
+            file.seek(endOfTwoRecords);
+            file.writeInt(0);
+        }
+
+        UploadJournal reopened = open(segmentSize, 1000, 16);
+        assertThat(reopened.firstSegment().read(endOfTwoRecords)).isSameAs(JournalSegment.Entry.END);
+        assertThat(sequences(reopened)).containsExactly(1L, 2L, 3L);
+        assertThat(reopened.append(payload(4)).join()).isEqualTo(4);
+    }
+
+    @Test
+    void releasedSegmentsAreNotReplayed() throws Exception {
+        UploadJournal journal = open(SMALL_SEGMENT, 1000, 16);
+        for (int i = 1; i <= 3; i++) {
+            journal.append(payload(i)).join();
+        }
+        journal.markApplied(2);
+        journal.release(journal.firstSegment());
+        shutDown(journal);
+
+        UploadJournal reopened = open(SMALL_SEGMENT, 1000, 16);
+        assertThat(segmentFiles()).hasSize(1);
+        assertThat(reopened.appliedSequence()).isEqualTo(2);
+        assertThat(sequences(reopened)).containsExactly(3L);
+    }
+
+    @Test
+    void keepsDeadLettersOutsideTheSegments() throws IOException {
+        UploadJournal journal = open(1024 * 1024, 1000, 16);
+        journal.append(payload(1)).join();
+
+        Path deadLetter = journal.deadLetter(1, payload(1));
+
+        assertThat(deadLetter).startsWith(directory.resolve("dead-letter"));
+        assertThat(Files.readAllBytes(deadLetter)).isEqualTo(payload(1));
+        assertThat(segmentFiles()).hasSize(1);
+    }
+
+    @Test
+    void refusesAppendsWhileTheBacklogIsFull() throws IOException {
+        UploadJournal journal = open(1024 * 1024, 2, 16);
+        journal.append(payload(1)).join();
+        journal.append(payload(2)).join();
+
+        assertThatThrownBy(() -> journal.append(payload(3))).isInstanceOf(JournalFullException.class);
+
+        journal.markApplied(1);
+        assertThat(journal.append(payload(3)).join()).isEqualTo(3);
+    }
+
+    @Test
+    void refusesAppendsThatNeedTooManySegments() throws IOException {
+        UploadJournal journal = open(SMALL_SEGMENT, 1000, 2);
+        for (int i = 1; i <= 4; i++) {
+            journal.append(payload(i)).join();
+        }
+
+        assertThatThrownBy(() -> journal.append(payload(5))).isInstanceOf(JournalFullException.class);
+    }
+
+    private UploadJournal open(int segmentSize, long maxUnappliedEntries, int maxSegments) throws IOException {
+        UploadJournal journal = new UploadJournal();
+        ReflectionTestUtils.setField(journal, "directory", directory);
+        ReflectionTestUtils.setField(journal, "segmentSize", segmentSize);
+        ReflectionTestUtils.setField(journal, "flushIntervalMs", 1L);
+        ReflectionTestUtils.setField(journal, "flushBatchSize", 64);
+        ReflectionTestUtils.setField(journal, "checkpointIntervalMs", 0L);
+        ReflectionTestUtils.setField(journal, "maxUnappliedEntries", maxUnappliedEntries);
+        ReflectionTestUtils.setField(journal, "maxSegments", maxSegments);
+        journal.open();
+        opened.add(journal);
+        return journal;
+    }
+
+    /**
+     * Closes the journal as a shutdown would, before the directory is opened again.
+     */
+    private void shutDown(UploadJournal journal) throws InterruptedException {
+        opened.remove(journal);
+        journal.close();
+    }
+
+    private static byte[] payload(int value) {
+        byte[] payload = new byte[PAYLOAD_SIZE];
+        payload[0] = (byte) value;
+        return payload;
+    }
+
+    private static List<Long> sequences(UploadJournal journal) {
+        List<Long> sequences = new ArrayList<>();
+        for (JournalSegment segment = journal.firstSegment(); segment != null; segment = journal.segmentAfter(segment)) {
+            JournalSegment.Entry entry;
+            for (int position = 0; (entry = segment.read(position)) != null && entry != JournalSegment.Entry.END;
+                 position = entry.nextPosition()) {
+                sequences.add(entry.sequence());
+            }
+        }
+        return sequences;
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(JournalSegment::isSegmentFile).sorted().toList();
+        }
+    }
+}
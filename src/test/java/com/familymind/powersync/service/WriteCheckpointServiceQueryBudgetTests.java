@@ -0,0 +1,102 @@
+package com.familymind.powersync.service;
+
+import com.familymind.powersync.dto.OperationData;
+import com.familymind.powersync.dto.WriteCheckpointRequest;
+import com.familymind.powersync.dto.WriteCheckpointRequest.WriteOperation;
+import com.familymind.powersync.entity.Family;
+import com.familymind.powersync.entity.Task;
+import com.familymind.powersync.entity.TaskList;
+import com.familymind.powersync.querytrace.QueryTrace;
+import com.familymind.powersync.repository.FamilyRepository;
+import com.familymind.powersync.repository.TaskListRepository;
+import com.familymind.powersync.repository.TaskRepository;
+import com.familymind.powersync.util.RankKeys;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class WriteCheckpointServiceQueryBudgetTests {
+
+    @Autowired
+    private WriteCheckpointService writeCheckpointService;
+
+    @Autowired
+    private FamilyRepository familyRepository;
+
+    @Autowired
+    private TaskListRepository taskListRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Value("${powersync.query-budget.write-checkpoint.base-statements}")
+    private int baseStatements;
+
+    @Value("${powersync.query-budget.write-checkpoint.statements-per-operation}")
+    private int statementsPerOperation;
+
+    /**
+     * Each round creates a task list and a task and patches an existing list, an existing task and an
+     * existing task's rank, so every operation has to load or check its row before writing it.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 100})
+    void writeCheckpointStaysWithinStatementBudget(int rounds) {
+        Family family = familyRepository.saveAndFlush(Family.builder().name("Query budget").build());
+        List<TaskList> lists = new ArrayList<>();
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < rounds; i++) {
+            TaskList list = taskListRepository.save(TaskList.builder().family(family).name("List " + i).build());
+            lists.add(list);
+            for (int t = 0; t < 2; t++) {
+                tasks.add(taskRepository.save(Task.builder()
+                        .family(family).taskList(list).title("Task " + t).rank(RankKeys.initial(t + 1)).build()));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        String familyId = family.getId().toString();
+        List<WriteOperation> operations = new ArrayList<>();
+        for (int i = 0; i < rounds; i++) {
+            UUID listId = lists.get(i).getId();
+            Task patched = tasks.get(2 * i);
+            Task moved = tasks.get(2 * i + 1);
+
+            operations.add(new WriteOperation("PUT", "task_list", OperationData.of(Map.of(
+                    "id", UUID.randomUUID().toString(), "name", "New list " + i, "family_id", familyId))));
+            operations.add(new WriteOperation("PATCH", "task_list", OperationData.of(Map.of(
+                    "id", listId.toString(), "sort_by", "position"))));
+            operations.add(new WriteOperation("PUT", "task", OperationData.of(Map.of(
+                    "id", UUID.randomUUID().toString(), "title", "New task " + i, "task_list_id", listId.toString(),
+                    "rank", RankKeys.between(RankKeys.initial(2), null)))));
+            operations.add(new WriteOperation("PATCH", "task", OperationData.of(Map.of(
+                    "id", patched.getId().toString(), "title", "Renamed", "is_completed", true))));
+            // A move: the task gets a rank in front of its sibling
+            operations.add(new WriteOperation("PATCH", "task", OperationData.of(Map.of(
+                    "id", moved.getId().toString(), "rank", RankKeys.between(null, patched.getRank())))));
+        }
+
+        try (QueryTrace trace = QueryTrace.start()) {
+            writeCheckpointService.apply(new WriteCheckpointRequest(operations));
+            entityManager.flush();
+
+            assertThat(trace.statements())
+                    .as("SQL statements for a batch of %d operations", operations.size())
+                    .isLessThanOrEqualTo(baseStatements + statementsPerOperation * operations.size());
+        }
+    }
+}
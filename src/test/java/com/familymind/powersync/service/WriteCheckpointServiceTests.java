@@ -0,0 +1,82 @@
+package com.familymind.powersync.service;
+
+import com.familymind.powersync.dto.OperationData;
+import com.familymind.powersync.dto.WriteCheckpointRequest;
+import com.familymind.powersync.dto.WriteCheckpointRequest.WriteOperation;
+import com.familymind.powersync.entity.Family;
+import com.familymind.powersync.entity.TaskList;
+import com.familymind.powersync.repository.FamilyRepository;
+import com.familymind.powersync.repository.TaskListRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class WriteCheckpointServiceTests {
+
+    @Autowired
+    private WriteCheckpointService writeCheckpointService;
+
+    @Autowired
+    private FamilyRepository familyRepository;
+
+    @Autowired
+    private TaskListRepository taskListRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void putCreatesTaskListWithTheClientsId() {
+        Family family = familyRepository.saveAndFlush(Family.builder().name("PUT").build());
+        UUID id = UUID.randomUUID();
+
+        apply(new WriteOperation("PUT", "task_list", OperationData.of(Map.of(
+                "id", id.toString(), "name", "Groceries", "family_id", family.getId().toString()))));
+
+        assertThat(taskListRepository.findById(id)).get()
+                .extracting(TaskList::getName).isEqualTo("Groceries");
+    }
+
+    @Test
+    void putReplacesALiveTaskList() {
+        Family family = familyRepository.saveAndFlush(Family.builder().name("PUT").build());
+        TaskList list = taskListRepository.saveAndFlush(TaskList.builder().family(family).name("Old").build());
+        entityManager.clear();
+
+        apply(new WriteOperation("PUT", "task_list", OperationData.of(Map.of(
+                "id", list.getId().toString(), "name", "New", "family_id", family.getId().toString()))));
+
+        assertThat(taskListRepository.findById(list.getId())).get()
+                .extracting(TaskList::getName).isEqualTo("New");
+    }
+
+    @Test
+    void putDoesNotResurrectADeletedTaskList() {
+        Family family = familyRepository.saveAndFlush(Family.builder().name("PUT").build());
+        TaskList list = taskListRepository.saveAndFlush(TaskList.builder().family(family).name("Old").build());
+        apply(new WriteOperation("DELETE", "task_list", OperationData.of(Map.of("id", list.getId().toString()))));
+
+        apply(new WriteOperation("PUT", "task_list", OperationData.of(Map.of(
+                "id", list.getId().toString(), "name", "Edited offline", "family_id", family.getId().toString()))));
+
+        TaskList stored = taskListRepository.findById(list.getId()).orElseThrow();
+        assertThat(stored.getDeletedAt()).isNotNull();
+        assertThat(stored.getName()).isEqualTo("Old");
+    }
+
+    private void apply(WriteOperation operation) {
+        writeCheckpointService.apply(new WriteCheckpointRequest(List.of(operation)));
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
@@ -0,0 +1,84 @@
+package com.familymind.powersync.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RankKeysTests {
+
+    @Test
+    void betweenUnboundedEnds() {
+        assertThat(RankKeys.between(null, null)).isEqualTo("8");
+        assertThat(RankKeys.between(null, "8")).isEqualTo("4");
+        assertThat(RankKeys.between("8", null)).isEqualTo("c");
+        assertThat(RankKeys.between("f", null)).isEqualTo("f8");
+        assertThat(RankKeys.between(null, "01")).isEqualTo("008");
+    }
+
+    @Test
+    void betweenAdjacentDigits() {
+        assertThat(RankKeys.between("4", "5")).isEqualTo("48");
+        assertThat(RankKeys.between("4f", "5")).isEqualTo("4f8");
+        assertThat(RankKeys.between("000000018", "000000028")).isEqualTo("00000001c");
+    }
+
+    @Test
+    void betweenKeyAndItsExtension() {
+        assertThat(RankKeys.between("4", "48")).isEqualTo("44");
+        assertThat(RankKeys.between("4", "401")).isEqualTo("4008");
+    }
+
+    @Test
+    void betweenRejectsInvalidBounds() {
+        assertThatThrownBy(() -> RankKeys.between("8", "8")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RankKeys.between("9", "8")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RankKeys.between("80", null)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RankKeys.between(null, "8x")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void repeatedInsertsStayOrderedAndValid() {
+        Random random = new Random(42);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            int slot = random.nextInt(keys.size() + 1);
+            String lower = slot > 0 ? keys.get(slot - 1) : null;
+            String upper = slot < keys.size() ? keys.get(slot) : null;
+
+            String key = RankKeys.between(lower, upper);
+
+            assertThat(RankKeys.requireValid(key)).isEqualTo(key);
+            if (lower != null) assertThat(key).isGreaterThan(lower);
+            if (upper != null) assertThat(key).isLessThan(upper);
+            keys.add(slot, key);
+        }
+    }
+
+    @Test
+    void initialKeysAreEvenlySpacedAndOrdered() {
+        assertThat(RankKeys.initial(1)).isEqualTo("000000018");
+        assertThat(RankKeys.initial(255)).isEqualTo("000000ff8");
+        assertThat(RankKeys.initial(2)).isGreaterThan(RankKeys.initial(1));
+    }
+
+    @Test
+    void requireValidAcceptsHexKeysNotEndingInZero() {
+        assertThat(RankKeys.requireValid("8")).isEqualTo("8");
+        assertThat(RankKeys.requireValid("0f")).isEqualTo("0f");
+        assertThat(RankKeys.requireValid("a".repeat(RankKeys.MAX_LENGTH))).hasSize(RankKeys.MAX_LENGTH);
+    }
+
+    @Test
+    void requireValidRejectsMalformedKeys() {
+        for (String rank : new String[] {null, "", "0", "80", "8A", "8g", " 8", "a".repeat(RankKeys.MAX_LENGTH + 1)}) {
+            assertThatThrownBy(() -> RankKeys.requireValid(rank))
+                    .as("rank %s", rank)
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+}
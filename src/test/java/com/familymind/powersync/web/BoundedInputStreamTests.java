@@ -0,0 +1,82 @@
+package com.familymind.powersync.web;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedInputStreamTests {
+
+    @Test
+    void readsABodyOfExactlyTheLimit() throws IOException {
+        BoundedInputStream stream = new BoundedInputStream(new ByteArrayInputStream(new byte[10]), 10);
+
+        assertThat(stream.readAllBytes()).hasSize(10);
+        assertThat(stream.read()).isEqualTo(-1);
+    }
+
+    @Test
+    void failsOnceTheLimitIsExceeded() {
+        BoundedInputStream stream = new BoundedInputStream(new ByteArrayInputStream(new byte[11]), 10);
+
+        assertThatThrownBy(stream::readAllBytes)
+                .isInstanceOf(UploadTooLargeException.class)
+                .hasMessageContaining("10 bytes");
+    }
+
+    @Test
+    void countsSingleByteReads() throws IOException {
+        BoundedInputStream stream = new BoundedInputStream(new ByteArrayInputStream(new byte[3]), 2);
+
+        stream.read();
+        stream.read();
+        assertThatThrownBy(stream::read).isInstanceOf(UploadTooLargeException.class);
+    }
+
+    @Test
+    void keepsFailingAfterTheLimitWasExceeded() {
+        BoundedInputStream stream = new BoundedInputStream(new ByteArrayInputStream(new byte[100]), 10);
+
+        assertThatThrownBy(stream::readAllBytes).isInstanceOf(UploadTooLargeException.class);
+        assertThatThrownBy(() -> stream.read(new byte[8], 0, 8)).isInstanceOf(UploadTooLargeException.class);
+        assertThatThrownBy(stream::read).isInstanceOf(UploadTooLargeException.class);
+    }
+
+    @Test
+    void neverAsksForMoreThanOneByteBeyondTheLimit() {
+        CountingInputStream endless = new CountingInputStream();
+        BoundedInputStream stream = new BoundedInputStream(endless, 10);
+
+        assertThatThrownBy(() -> {
+            byte[] buffer = new byte[8192];
+            while (stream.read(buffer, 0, buffer.length) != -1) {
+                // Drain
+            }
+        }).isInstanceOf(UploadTooLargeException.class);
+        assertThat(endless.requested).isEqualTo(11);
+    }
+
+    /**
+     * An endless stream of zeros that records how many bytes were asked for.
+     */
+    private static class CountingInputStream extends InputStream {
+
+        private long requested;
+
+        @Override
+        public int read() {
+            requested++;
+            return 0;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            requested += length;
+            return length;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.familymind.powersync.web;
+
+import com.familymind.powersync.controller.PowerSyncController;
+import com.familymind.powersync.journal.UploadJournal;
+import com.familymind.powersync.journal.UploadJournalCodec;
+import com.familymind.powersync.replication.ReplicationLsnService;
+import com.familymind.powersync.security.BearerTokens;
+import com.familymind.powersync.service.WriteCheckpointService;
+import com.github.luben.zstd.Zstd;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class RequestDecompressionFilterTests {
+
+    private static final String PATH = "/api/powersync/write-checkpoint";
+    private static final int LIMIT = 1024;
+    private static final byte[] BODY = "{\"operations\":[]}".getBytes(StandardCharsets.UTF_8);
+
+    private final RequestDecompressionFilter filter = new RequestDecompressionFilter();
+
+    @BeforeEach
+    void setLimit() {
+        ReflectionTestUtils.setField(filter, "maxDecompressedBytes", (long) LIMIT);
+    }
+
+    @Test
+    void passesUncompressedBodiesThrough() throws Exception {
+        MockHttpServletRequest request = upload(null, BODY);
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest()).isSameAs(request);
+    }
+
+    @Test
+    void decompressesGzipAndHidesTheCompressedHeaders() throws Exception {
+        ServletRequest filtered = filter(upload("gzip", gzip(BODY)));
+
+        assertThat(filtered.getInputStream().readAllBytes()).isEqualTo(BODY);
+        assertThat(((HttpServletRequest) filtered).getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(filtered.getContentLengthLong()).isEqualTo(-1);
+    }
+
+    @Test
+    void undoesStackedEncodingsFromLastToFirst() throws Exception {
+        // "gzip, zstd": gzip was applied first, then zstd
+        byte[] body = Zstd.compress(gzip(BODY));
+
+        assertThat(filter(upload("gzip, zstd", body)).getInputStream().readAllBytes()).isEqualTo(BODY);
+        assertThatThrownBy(() -> filter(upload("zstd, gzip", body)).getInputStream().readAllBytes())
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void acceptsABodyOfExactlyTheLimit() throws Exception {
+        byte[] body = new byte[LIMIT];
+
+        assertThat(filter(upload("zstd", Zstd.compress(body))).getInputStream().readAllBytes()).hasSize(LIMIT);
+    }
+
+    @Test
+    void failsTheReadOfADecompressionBomb() throws Exception {
+        byte[] bomb = gzip(new byte[1024 * 1024]);
+        assertThat(bomb.length).isLessThan(LIMIT * 2);
+
+        ServletInputStream body = filter(upload("gzip", bomb)).getInputStream();
+
+        assertThatThrownBy(body::readAllBytes).isInstanceOf(UploadTooLargeException.class);
+    }
+
+    @Test
+    void rejectsUnsupportedEncodingsWith415() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(upload("gzip, br", gzip(BODY)), response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(415);
+        assertThat(response.getErrorMessage()).contains("br");
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    @Test
+    void answersADecompressionBombWith413() throws Exception {
+        PowerSyncController controller = new PowerSyncController(mock(WriteCheckpointService.class),
+                emptyProvider(), emptyProvider(), mock(ReplicationLsnService.class), mock(BearerTokens.class));
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).addFilters(filter).build();
+        byte[] json = ("{\"operations\":[{\"op\":\"PUT\",\"table\":\"task\",\"data\":{\"title\":\""
+                + "x".repeat(4 * LIMIT) + "\"}}]}").getBytes(StandardCharsets.UTF_8);
+
+        mockMvc.perform(post(PATH)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                        .content(gzip(json)))
+                .andExpect(status().isContentTooLarge());
+    }
+
+    @Test
+    void deliversNonBlockingReadsToTheReadListener() throws Exception {
+        MockHttpServletRequest request = upload("gzip", null);
+        AsyncBody async = new AsyncBody(gzip(BODY));
+        ServletInputStream body = filter(new AsyncRequest(request, async)).getInputStream();
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+
+        body.setReadListener(new CollectingListener(body, received, error));
+        assertThat(body.isReady()).isFalse();
+        async.deliver();
+
+        assertThat(error.get()).isNull();
+        assertThat(received.toByteArray()).isEqualTo(BODY);
+        assertThat(body.isFinished()).isTrue();
+    }
+
+    @Test
+    void reportsANonBlockingDecompressionBombToTheReadListener() throws Exception {
+        MockHttpServletRequest request = upload("gzip", null);
+        AsyncBody async = new AsyncBody(gzip(new byte[1024 * 1024]));
+        ServletInputStream body = filter(new AsyncRequest(request, async)).getInputStream();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+
+        body.setReadListener(new CollectingListener(body, new ByteArrayOutputStream(), error));
+        async.deliver();
+
+        assertThat(error.get()).isInstanceOf(UploadTooLargeException.class);
+    }
+
+    private ServletRequest filter(MockHttpServletRequest request) throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        assertThat(chain.getRequest()).isNotNull().isNotSameAs(request);
+        return chain.getRequest();
+    }
+
+    private static MockHttpServletRequest upload(String contentEncoding, byte[] body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", PATH);
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        if (contentEncoding != null) {
+            request.addHeader(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+        }
+        request.setContent(body);
+        return request;
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ObjectProvider<T> emptyProvider() {
+        return mock(ObjectProvider.class);
+    }
+
+    /**
+     * A request whose body only supports non-blocking reads, like an async servlet's.
+     */
+    private static class AsyncRequest extends MockHttpServletRequest {
+
+        private final AsyncBody body;
+
+        AsyncRequest(MockHttpServletRequest request, AsyncBody body) {
+            super(request.getMethod(), request.getRequestURI());
+            setContentType(request.getContentType());
+            addHeader(HttpHeaders.CONTENT_ENCODING, request.getHeader(HttpHeaders.CONTENT_ENCODING));
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return body;
+        }
+    }
+
+    /**
+     * Hands its bytes to the registered listener when {@link #deliver()} is called, as a container would
+     * once they arrive, and refuses reads while nothing has arrived.
+     */
+    private static class AsyncBody extends ServletInputStream {
+
+        private final ByteArrayInputStream data;
+        private ReadListener listener;
+        private boolean arrived;
+
+        AsyncBody(byte[] data) {
+            this.data = new ByteArrayInputStream(data);
+        }
+
+        void deliver() throws IOException {
+            arrived = true;
+            try {
+                listener.onDataAvailable();
+                listener.onAllDataRead();
+            } catch (IOException | RuntimeException e) {
+                listener.onError(e);
+            }
+        }
+
+        @Override
+        public int read() {
+            if (!arrived) {
+                throw new IllegalStateException("Read before data arrived");
+            }
+            return data.read();
+        }
+
+        @Override
+        public boolean isFinished() {
+            return arrived && data.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+            return arrived && data.available() > 0;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            listener = readListener;
+        }
+    }
+
+    private record CollectingListener(ServletInputStream body, ByteArrayOutputStream received,
+                                      AtomicReference<Throwable> error) implements ReadListener {
+
+        @Override
+        public void onDataAvailable() throws IOException {
+            byte[] buffer = new byte[256];
+            while (body.isReady() && !body.isFinished()) {
+                int read = body.read(buffer);
+                if (read == -1) {
+                    return;
+                }
+                received.write(buffer, 0, read);
+            }
+        }
+
+        @Override
+        public void onAllDataRead() {
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error.set(t);
+        }
+    }
+}
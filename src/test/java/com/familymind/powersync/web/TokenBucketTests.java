@@ -0,0 +1,108 @@
+package com.familymind.powersync.web;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTests {
+
+    private static final long INTERVAL = 100;
+    private static final int BURST = 3;
+    private static final long TOLERANCE = INTERVAL * (BURST - 1);
+    private static final long NOW = 1_000_000;
+
+    private final TokenBucket bucket = new TokenBucket();
+
+    @Test
+    void admitsAFullBurstAtOnce() {
+        for (int i = 0; i < BURST; i++) {
+            assertThat(bucket.tryAcquire(NOW, INTERVAL, TOLERANCE)).as("request %d", i).isZero();
+        }
+        assertThat(bucket.tryAcquire(NOW, INTERVAL, TOLERANCE)).isEqualTo(INTERVAL);
+    }
+
+    @Test
+    void reportsTheTimeUntilTheNextToken() {
+        exhaust(NOW);
+
+        assertThat(bucket.tryAcquire(NOW + 40, INTERVAL, TOLERANCE)).isEqualTo(60);
+        assertThat(bucket.tryAcquire(NOW + 99, INTERVAL, TOLERANCE)).isEqualTo(1);
+    }
+
+    @Test
+    void refillsOneTokenPerInterval() {
+        exhaust(NOW);
+
+        assertThat(bucket.tryAcquire(NOW + INTERVAL, INTERVAL, TOLERANCE)).isZero();
+        assertThat(bucket.tryAcquire(NOW + INTERVAL, INTERVAL, TOLERANCE)).isEqualTo(INTERVAL);
+        assertThat(bucket.tryAcquire(NOW + 2 * INTERVAL, INTERVAL, TOLERANCE)).isZero();
+    }
+
+    @Test
+    void refusedRequestsDoNotTakeTokens() {
+        exhaust(NOW);
+        for (int i = 0; i < 10; i++) {
+            bucket.tryAcquire(NOW + 50, INTERVAL, TOLERANCE);
+        }
+
+        assertThat(bucket.tryAcquire(NOW + INTERVAL, INTERVAL, TOLERANCE)).isZero();
+    }
+
+    @Test
+    void neverHoldsMoreThanABurstAfterIdling() {
+        exhaust(NOW);
+
+        long later = NOW + 1_000 * INTERVAL;
+        for (int i = 0; i < BURST; i++) {
+            assertThat(bucket.tryAcquire(later, INTERVAL, TOLERANCE)).isZero();
+        }
+        assertThat(bucket.tryAcquire(later, INTERVAL, TOLERANCE)).isEqualTo(INTERVAL);
+    }
+
+    @Test
+    void isFullOnceEveryTokenHasBeenRefilled() {
+        assertThat(bucket.isFull(NOW)).isTrue();
+
+        bucket.tryAcquire(NOW, INTERVAL, TOLERANCE);
+        assertThat(bucket.isFull(NOW)).isFalse();
+        assertThat(bucket.isFull(NOW + INTERVAL - 1)).isFalse();
+        assertThat(bucket.isFull(NOW + INTERVAL)).isTrue();
+    }
+
+    @Test
+    void concurrentRequestsShareOneBurst() throws InterruptedException {
+        int threads = 16;
+        AtomicInteger admitted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < 100; i++) {
+                        if (bucket.tryAcquire(NOW, INTERVAL, TOLERANCE) == 0) {
+                            admitted.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        done.await();
+
+        assertThat(admitted).hasValue(BURST);
+    }
+
+    private void exhaust(long now) {
+        while (bucket.tryAcquire(now, INTERVAL, TOLERANCE) == 0) {
+            // Take every token
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.familymind.powersync.web;
+
+import com.familymind.powersync.security.BearerTokens;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UploadAdmissionFilterTests {
+
+    private static final String PATH = "/api/powersync/write-checkpoint";
+    private static final String CLAIMS = "test.claims";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private UploadAdmissionFilter filter;
+
+    @BeforeEach
+    void createFilter() {
+        BearerTokens bearerTokens = mock(BearerTokens.class);
+        when(bearerTokens.claims(any())).thenAnswer(invocation ->
+                ((HttpServletRequest) invocation.getArgument(0)).getAttribute(CLAIMS));
+        filter = new UploadAdmissionFilter(bearerTokens, meterRegistry);
+        configure(1000, 1000, 1000, 1000);
+    }
+
+    @Test
+    void onlyGuardsUploadsAndRebalances() {
+        assertThat(filter.shouldNotFilter(new MockHttpServletRequest("POST", PATH))).isFalse();
+        assertThat(filter.shouldNotFilter(new MockHttpServletRequest("POST",
+                "/api/powersync/task-lists/" + UUID.randomUUID() + "/rebalance"))).isFalse();
+        assertThat(filter.shouldNotFilter(new MockHttpServletRequest("POST", "/api/auth/token"))).isTrue();
+        assertThat(filter.shouldNotFilter(new MockHttpServletRequest("GET", PATH + "/await"))).isTrue();
+    }
+
+    @Test
+    void rejectsAFamilyOnceItsBurstIsUsedUp() throws Exception {
+        configure(1, 3, 1000, 1000);
+        String familyId = UUID.randomUUID().toString();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(send(upload(familyId, "member-" + i)).getStatus()).as("upload %d", i).isEqualTo(200);
+        }
+        MockHttpServletResponse rejected = send(upload(familyId, "member-3"));
+
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(rejections("family_rate")).isEqualTo(1);
+        // Other families keep their own bucket
+        assertThat(send(upload(UUID.randomUUID().toString(), "member-4")).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void retryAfterRoundsTheWaitUpToWholeSeconds() throws Exception {
+        // One upload every 5 seconds, no burst
+        configure(0.2, 1, 1000, 1000);
+        String familyId = UUID.randomUUID().toString();
+
+        send(upload(familyId, "member"));
+        MockHttpServletResponse rejected = send(upload(familyId, "member"));
+
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("5");
+    }
+
+    @Test
+    void admitsTheFamilyAgainAfterOneInterval() throws Exception {
+        // One upload every 50 ms, no burst
+        configure(20, 1, 1000, 1000);
+        String familyId = UUID.randomUUID().toString();
+
+        assertThat(send(upload(familyId, "member")).getStatus()).isEqualTo(200);
+        assertThat(send(upload(familyId, "member")).getStatus()).isEqualTo(429);
+        Thread.sleep(60);
+        assertThat(send(upload(familyId, "member")).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void capsConcurrentUploadsPerMemberAndReleasesTheSlot() throws Exception {
+        configure(1000, 1000, 1, 1000);
+        String familyId = UUID.randomUUID().toString();
+        AtomicReference<MockHttpServletResponse> concurrent = new AtomicReference<>();
+
+        // While the first upload is in the chain, the same member uploads again
+        MockHttpServletResponse first = send(upload(familyId, "member"),
+                (request, response) -> concurrent.set(send(upload(familyId, "member"))));
+
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(concurrent.get().getStatus()).isEqualTo(429);
+        assertThat(concurrent.get().getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(rejections("member_concurrency")).isEqualTo(1);
+        // Neither the rejected nor the finished upload keeps the member's slot
+        assertThat(memberUploads()).allSatisfy((member, count) -> assertThat(count).hasValue(0));
+        assertThat(send(upload(familyId, "member")).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void capsUploadsInFlightAcrossAllClients() throws Exception {
+        configure(1000, 1000, 1000, 1);
+        AtomicReference<MockHttpServletResponse> concurrent = new AtomicReference<>();
+
+        MockHttpServletResponse first = send(upload(null, null),
+                (request, response) -> concurrent.set(send(upload(null, null))));
+
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(concurrent.get().getStatus()).isEqualTo(429);
+        assertThat(concurrent.get().getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(rejections("global_in_flight")).isEqualTo(1);
+        assertThat(send(upload(null, null)).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void releasesTheMemberSlotWhenTheGlobalCapRejects() throws Exception {
+        configure(1000, 1000, 1, 1);
+        String familyId = UUID.randomUUID().toString();
+        AtomicReference<MockHttpServletResponse> concurrent = new AtomicReference<>();
+
+        send(upload(familyId, "first"), (request, response) -> concurrent.set(send(upload(familyId, "second"))));
+
+        assertThat(concurrent.get().getStatus()).isEqualTo(429);
+        assertThat(rejections("global_in_flight")).isEqualTo(1);
+        assertThat(memberUploads().get("second")).hasValue(0);
+        assertThat(send(upload(familyId, "second")).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void releasesTheSlotsWhenTheUploadFails() {
+        configure(1000, 1000, 1, 1);
+        String familyId = UUID.randomUUID().toString();
+
+        assertThatThrownBy(() -> send(upload(familyId, "member"), (request, response) -> {
+            throw new IllegalStateException("Upload failed");
+        })).hasMessage("Upload failed");
+
+        assertThat(memberUploads().get("member")).hasValue(0);
+        assertThat(send(upload(familyId, "member")).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void evictsIdleFamiliesAndMembers() throws InterruptedException {
+        configure(1000, 1000, 1000, 1000);
+        send(upload(UUID.randomUUID().toString(), "member"));
+        assertThat(memberUploads()).hasSize(1);
+        // Let the family's bucket refill its one token
+        Thread.sleep(5);
+
+        ReflectionTestUtils.invokeMethod(filter, "evictIdle");
+
+        assertThat(memberUploads()).isEmpty();
+        assertThat((Map<?, ?>) ReflectionTestUtils.getField(filter, "familyBuckets")).isEmpty();
+    }
+
+    private void configure(double familyRatePerSecond, int familyBurst, int memberMaxConcurrent, int maxInFlight) {
+        ReflectionTestUtils.setField(filter, "familyRatePerSecond", familyRatePerSecond);
+        ReflectionTestUtils.setField(filter, "familyBurst", familyBurst);
+        ReflectionTestUtils.setField(filter, "memberMaxConcurrent", memberMaxConcurrent);
+        ReflectionTestUtils.setField(filter, "maxInFlight", maxInFlight);
+    }
+
+    private static MockHttpServletRequest upload(String familyId, String memberId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", PATH);
+        if (familyId != null || memberId != null) {
+            Map<String, Object> claims = new HashMap<>();
+            claims.put("family_id", familyId);
+            claims.put("member_id", memberId);
+            request.setAttribute(CLAIMS, (Claims) Jwts.claims().add(claims).build());
+        }
+        return request;
+    }
+
+    private MockHttpServletResponse send(MockHttpServletRequest request) {
+        return send(request, new MockFilterChain());
+    }
+
+    private MockHttpServletResponse send(MockHttpServletRequest request, FilterChain chain) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filter.doFilter(request, response, chain);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return response;
+    }
+
+    private double rejections(String reason) {
+        return meterRegistry.counter("powersync.admission.rejected", "reason", reason).count();
+    }
+
+    @SuppressWarnings("unchecked")
+    private ConcurrentHashMap<String, AtomicInteger> memberUploads() {
+        return (ConcurrentHashMap<String, AtomicInteger>) ReflectionTestUtils.getField(filter, "memberUploads");
+    }
+}